@@ -2,10 +2,17 @@ package org.example.movierentals.client;
 
 import org.example.movierentals.client.service.CClientServiceImpl;
 import org.example.movierentals.client.service.CMovieServiceImpl;
-import org.example.movierentals.client.service.CRentalServiceImpl;
+import org.example.movierentals.client.service.NearCache;
+import org.example.movierentals.client.service.ServiceStub;
+import org.example.movierentals.client.tcp.ConnectionPoolConfig;
+import org.example.movierentals.client.tcp.RetryPolicy;
 import org.example.movierentals.client.tcp.TcpClient;
 import org.example.movierentals.client.ui.Console;
+import org.example.movierentals.common.IRentalService;
+import org.example.movierentals.common.domain.Client;
+import org.example.movierentals.common.domain.Movie;
 
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -16,17 +23,24 @@ public class ClientApp {
     public static void main(String[] args) {
         System.out.println("Client is running...");
         ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        TcpClient tcpClient = new TcpClient();
+        TcpClient tcpClient = new TcpClient(ConnectionPoolConfig.fromSystemProperties(), RetryPolicy.fromSystemProperties());
 
-        CMovieServiceImpl movieService = new CMovieServiceImpl(executorService, tcpClient);
-        CClientServiceImpl clientService = new CClientServiceImpl(executorService, tcpClient);
-        CRentalServiceImpl rentalService = new CRentalServiceImpl(executorService, tcpClient);
+        /**
+         * Near caches are off unless client.nearCache.<name>.maxEntries is set
+         */
+        NearCache<Long, Movie> movieCache = NearCache.fromSystemProperties("movies", 0, Duration.ofSeconds(30), Movie::new);
+        NearCache<Long, Client> clientCache = NearCache.fromSystemProperties("clients", 0, Duration.ofSeconds(30), Client::new);
+
+        CMovieServiceImpl movieService = new CMovieServiceImpl(executorService, tcpClient, movieCache);
+        CClientServiceImpl clientService = new CClientServiceImpl(executorService, tcpClient, clientCache);
+        IRentalService rentalService = ServiceStub.create(IRentalService.class, executorService, tcpClient);
 
         Console console = new Console(movieService, clientService, rentalService);
 
         console.runConsole();
 
         executorService.shutdown();
+        tcpClient.close();
         System.out.println("Client shut down.");
     }
 }
\ No newline at end of file
@@ -2,91 +2,69 @@ package org.example.movierentals.client.service;
 
 import org.example.movierentals.client.tcp.TcpClient;
 import org.example.movierentals.common.IClientService;
-import org.example.movierentals.common.Message;
 import org.example.movierentals.common.domain.Client;
-import org.example.movierentals.common.domain.exceptions.MovieRentalsException;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
+/**
+ * Sends client calls to the server through a {@link ServiceStub}, answering
+ * {@link #getClientById} from the near cache when it can.
+ */
 public class CClientServiceImpl implements IClientService {
-    ExecutorService executorService;
-    TcpClient tcpClient;
+    private final IClientService remote;
+    private final NearCache<Long, Client> clientCache;
 
     public CClientServiceImpl(ExecutorService executorService, TcpClient tcpClient) {
-        this.executorService = executorService;
-        this.tcpClient = tcpClient;
+        this(executorService, tcpClient, NearCache.disabled("clients"));
     }
 
-    private String getResponse(Message request) {
-        Message response = tcpClient.sendAndReceive(request);
-        if(response.getHeader().contains("200")) {
-            return response.getBody();
-        } else {
-            throw new MovieRentalsException(response.getBody());
-        }
+    /**
+     * @param clientCache caches {@link #getClientById} responses; this service's own updates and
+     *                   deletes invalidate them.
+     */
+    public CClientServiceImpl(ExecutorService executorService, TcpClient tcpClient, NearCache<Long, Client> clientCache) {
+        this.remote = ServiceStub.create(IClientService.class, executorService, tcpClient);
+        this.clientCache = clientCache;
     }
 
     @Override
-    public Future<String> getAllClients() {
-        return executorService.submit(() -> {
-            Message request = new Message("getAllClients");
-            return getResponse(request);
-        });
+    public CompletableFuture<List<Client>> getAllClients() {
+        return remote.getAllClients();
     }
 
     @Override
-    public Future<String> addClient(Client client) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(client.getFirstName()).append(",")
-                .append(client.getLastName()).append(",")
-                .append(client.getDateOfBirth()).append(",")
-                .append(client.getEmail()).append(",")
-                .append(client.isSubscribe()).append(",");
-        return executorService.submit(() ->{
-            Message request = new Message("addClient", sb.toString());
-            return getResponse(request);
-        });
+    public CompletableFuture<Client> addClient(Client client) {
+        return remote.addClient(client);
     }
 
     @Override
-    public Future<String> getClientById(Long id) {
-        return executorService.submit(() -> {
-            Message request = new Message("getClientById", String.valueOf(id));
-            return getResponse(request);
+    public CompletableFuture<Client> getClientById(Long id) {
+        Client cached = clientCache.get(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long version = clientCache.version();
+        return remote.getClientById(id).thenApply(response -> {
+            clientCache.put(id, response, version);
+            return response;
         });
     }
 
     @Override
-    public Future<String> updateClient(Client client) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(client.getId()).append(",")
-                .append(client.getFirstName()).append(",")
-                .append(client.getLastName()).append(",")
-                .append(client.getDateOfBirth()).append(",")
-                .append(client.getEmail()).append(",")
-                .append(client.isSubscribe());
-
-        return executorService.submit(() -> {
-            Message request = new Message("updateClient", sb.toString());
-            return getResponse(request);
-        });
+    public CompletableFuture<Client> updateClient(Client client) {
+        return remote.updateClient(client).whenComplete((response, e) -> clientCache.invalidate(client.getId()));
     }
 
     @Override
-    public Future<String> deleteClientById(Long id) {
-        return executorService.submit(() -> {
-            Message request = new Message("deleteClientById", String.valueOf(id));
-            return getResponse(request);
-        });
+    public CompletableFuture<Client> deleteClientById(Long id) {
+        return remote.deleteClientById(id).whenComplete((response, e) -> clientCache.invalidate(id));
     }
 
     @Override
-    public Future<String> filterClientsByKeyword(String keyword) {
-        return executorService.submit(() -> {
-            Message request = new Message("filterClientsByKeyword", keyword);
-            return getResponse(request);
-        });
+    public CompletableFuture<List<Client>> filterClientsByKeyword(String keyword) {
+        return remote.filterClientsByKeyword(keyword);
     }
 
 }
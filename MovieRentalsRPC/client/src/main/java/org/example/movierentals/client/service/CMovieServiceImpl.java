@@ -1,95 +1,81 @@
 package org.example.movierentals.client.service;
 
-import org.example.movierentals.common.Message;
 import org.example.movierentals.common.IMovieService;
 import org.example.movierentals.client.tcp.TcpClient;
 import org.example.movierentals.common.domain.Movie;
-import org.example.movierentals.common.domain.exceptions.MovieRentalsException;
+import org.example.movierentals.common.domain.MovieChange;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
+/**
+ * Sends movie calls to the server through a {@link ServiceStub}, answering
+ * {@link #getMovieById} from the near cache when it can.
+ */
 public class CMovieServiceImpl implements IMovieService {
-    ExecutorService executorService;
-    TcpClient tcpClient;
+    private final IMovieService remote;
+    private final NearCache<Long, Movie> movieCache;
 
     public CMovieServiceImpl(ExecutorService executorService, TcpClient tcpClient) {
-        this.executorService = executorService;
-        this.tcpClient = tcpClient;
+        this(executorService, tcpClient, NearCache.disabled("movies"));
     }
 
-    private String getResponse(Message request) {
-        Message response = tcpClient.sendAndReceive(request);
-        if(response.getHeader().contains("200")) {
-            return response.getBody();
-        } else {
-            throw new MovieRentalsException(response.getBody());
-        }
+    /**
+     * @param movieCache caches {@link #getMovieById} responses; this service's own updates and
+     *                   deletes invalidate them.
+     */
+    public CMovieServiceImpl(ExecutorService executorService, TcpClient tcpClient, NearCache<Long, Movie> movieCache) {
+        this.remote = ServiceStub.create(IMovieService.class, executorService, tcpClient);
+        this.movieCache = movieCache;
     }
 
     @Override
-    public Future<String> getAllMovies() {
-        return executorService.submit(() -> {
-            Message request = new Message("getAllMovies");
-            return getResponse(request);
-        });
+    public CompletableFuture<List<Movie>> getAllMovies() {
+        return remote.getAllMovies();
     }
 
-
     @Override
-    public Future<String> addMovie(Movie movie) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(movie.getTitle()).append(",")
-                .append(movie.getYear()).append(",")
-                .append(movie.getGenre()).append(",")
-                .append(movie.getAgeRestrictions()).append(",")
-                .append(movie.getRentalPrice()).append(",")
-                .append(movie.isAvailable());
+    public CompletableFuture<Integer> streamAllMovies(Consumer<List<Movie>> chunks) {
+        return remote.streamAllMovies(chunks);
+    }
 
-        return executorService.submit(() -> {
-            Message request = new Message("addMovie", sb.toString());
-            return getResponse(request);
-        });
+    @Override
+    public CompletableFuture<Movie> addMovie(Movie movie) {
+        return remote.addMovie(movie);
     }
 
     @Override
-    public Future<String> getMovieById(Long id) {
-        return executorService.submit(() -> {
-            Message request = new Message("getMovieById", String.valueOf(id));
-            return getResponse(request);
+    public CompletableFuture<Movie> getMovieById(Long id) {
+        Movie cached = movieCache.get(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long version = movieCache.version();
+        return remote.getMovieById(id).thenApply(response -> {
+            movieCache.put(id, response, version);
+            return response;
         });
     }
 
     @Override
-    public Future<String> updateMovie(Movie movie) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(movie.getId()).append(",")
-                .append(movie.getTitle()).append(",")
-                .append(movie.getYear()).append(",")
-                .append(movie.getGenre()).append(",")
-                .append(movie.getAgeRestrictions()).append(",")
-                .append(movie.getRentalPrice()).append(",")
-                .append(movie.isAvailable());
+    public CompletableFuture<Movie> updateMovie(Movie movie) {
+        return remote.updateMovie(movie).whenComplete((response, e) -> movieCache.invalidate(movie.getId()));
+    }
 
-        return executorService.submit(() -> {
-            Message request = new Message("updateMovie", sb.toString());
-            return getResponse(request);
-        });
+    @Override
+    public CompletableFuture<Movie> deleteMovieById(Long id) {
+        return remote.deleteMovieById(id).whenComplete((response, e) -> movieCache.invalidate(id));
     }
 
     @Override
-    public Future<String> deleteMovieById(Long id) {
-        return executorService.submit(() -> {
-            Message request = new Message("deleteMovieById", String.valueOf(id));
-            return getResponse(request);
-        });
+    public CompletableFuture<List<Movie>> filterMoviesByKeyword(String keyword) {
+        return remote.filterMoviesByKeyword(keyword);
     }
 
     @Override
-    public Future<String> filterMoviesByKeyword(String keyword) {
-        return executorService.submit(() -> {
-            Message request = new Message("filterMoviesByKeyword", keyword);
-            return getResponse(request);
-        });
+    public CompletableFuture<Void> subscribeMovieChanges(Consumer<MovieChange> changes) {
+        return remote.subscribeMovieChanges(changes);
     }
-}
\ No newline at end of file
+}
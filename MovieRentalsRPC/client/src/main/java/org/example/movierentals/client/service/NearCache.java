@@ -0,0 +1,136 @@
+package org.example.movierentals.client.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * A small least-recently-used cache of lookup responses, kept next to the caller so that
+ * a record shown again and again is fetched from the server once per time-to-live.
+ * <p>
+ * Entries are dropped when the caller changes or deletes the record. Changes made by
+ * other terminals show up once the entry expires, so the time-to-live bounds how stale
+ * a cached record can be. A cache with no entries allowed is disabled and never holds anything.
+ * <p>
+ * Mutable values are copied on the way in and out, so a caller that edits the record it
+ * was given, e.g. to send an update, does not change the cached one.
+ */
+public class NearCache<K, V> {
+    private final String name;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final UnaryOperator<V> copy;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long version;
+
+    /**
+     * A cache of immutable values, which are handed out as they are.
+     */
+    public NearCache(String name, int maxEntries, Duration ttl) {
+        this(name, maxEntries, ttl, UnaryOperator.identity());
+    }
+
+    /**
+     * @param copy makes an independent copy of a value.
+     */
+    public NearCache(String name, int maxEntries, Duration ttl, UnaryOperator<V> copy) {
+        if (maxEntries < 0 || ttl.isNegative()) {
+            throw new IllegalArgumentException("Near cache " + name + " needs maxEntries >= 0 and a ttl >= 0.");
+        }
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.copy = copy;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > NearCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Reads {@code client.nearCache.<name>.maxEntries} and {@code .ttlMillis},
+     * falling back to the given values.
+     */
+    public static <K, V> NearCache<K, V> fromSystemProperties(String name, int maxEntries, Duration ttl,
+                                                              UnaryOperator<V> copy) {
+        return new NearCache<>(name,
+                Integer.getInteger("client.nearCache." + name + ".maxEntries", maxEntries),
+                Duration.ofMillis(Long.getLong("client.nearCache." + name + ".ttlMillis", ttl.toMillis())), copy);
+    }
+
+    public static <K, V> NearCache<K, V> disabled(String name) {
+        return new NearCache<>(name, 0, Duration.ZERO);
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0 && ttlNanos > 0;
+    }
+
+    /**
+     * @return a copy of the cached value, or {@code null} if there is none or it has expired.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return copy.apply(entry.value);
+    }
+
+    /**
+     * Taken before fetching a value; see {@link #put(Object, Object, long)}.
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Caches a fetched value, unless an entry was invalidated since the given version was
+     * taken: the fetch may then have read the record before that change.
+     */
+    public synchronized void put(K key, V value, long fetchedAtVersion) {
+        if (!isEnabled() || fetchedAtVersion != version) {
+            return;
+        }
+        entries.put(key, new Entry<>(copy.apply(value), System.nanoTime() + ttlNanos));
+    }
+
+    public synchronized void invalidate(K key) {
+        version++;
+        entries.remove(key);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    @Override
+    public String toString() {
+        return "NearCache{" +
+                "name='" + name + '\'' +
+                ", maxEntries=" + maxEntries +
+                ", ttl=" + Duration.ofNanos(ttlNanos) +
+                '}';
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
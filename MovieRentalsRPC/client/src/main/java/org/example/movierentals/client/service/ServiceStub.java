@@ -0,0 +1,124 @@
+package org.example.movierentals.client.service;
+
+import org.example.movierentals.client.tcp.TcpClient;
+import org.example.movierentals.common.Message;
+import org.example.movierentals.common.RpcMethod;
+import org.example.movierentals.common.domain.exceptions.MovieRentalsException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Implements a service interface by sending every call to the server, see {@link RpcMethod}.
+ * <p>
+ * The methods are resolved once, when the stub is created; a call looks its method up in
+ * a map and encodes its arguments before returning. Unary and streamed calls wait for
+ * their response on the executor, a subscription on a connection of its own. A response
+ * with an error status fails the call with a {@link MovieRentalsException}.
+ */
+public final class ServiceStub implements InvocationHandler {
+    private static final String OK = "200";
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final Class<?> serviceInterface;
+    private final Map<Method, RpcMethod> methods;
+    private final ExecutorService executorService;
+    private final TcpClient tcpClient;
+
+    private ServiceStub(Class<?> serviceInterface, ExecutorService executorService, TcpClient tcpClient) {
+        this.serviceInterface = serviceInterface;
+        this.methods = RpcMethod.resolve(serviceInterface);
+        this.executorService = executorService;
+        this.tcpClient = tcpClient;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a method of the interface cannot be sent, see
+     *                                  {@link RpcMethod#resolve(Class)}.
+     */
+    public static <T> T create(Class<T> serviceInterface, ExecutorService executorService, TcpClient tcpClient) {
+        ServiceStub stub = new ServiceStub(serviceInterface, executorService, tcpClient);
+        return serviceInterface.cast(Proxy.newProxyInstance(serviceInterface.getClassLoader(),
+                new Class<?>[]{serviceInterface}, stub));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        RpcMethod rpc = methods.get(method);
+        if (rpc == null) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+        Object[] arguments = args == null ? NO_ARGUMENTS : args;
+        Message request = rpc.request(arguments);
+        switch (rpc.getKind()) {
+            case UNARY:
+                return CompletableFuture.supplyAsync(() -> getResponse(rpc, request), executorService);
+            case STREAM:
+                Consumer<Object> chunks = consumer(rpc, arguments);
+                return CompletableFuture.supplyAsync(() -> getStreamedResponse(rpc, request, chunks), executorService);
+            default:
+                return subscribe(rpc, request, consumer(rpc, arguments));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Object> consumer(RpcMethod rpc, Object[] arguments) {
+        return (Consumer<Object>) arguments[rpc.getConsumerIndex()];
+    }
+
+    /**
+     * Only a response with an OK status carries a result; any other status carries the
+     * reason as text.
+     */
+    private static boolean isOk(Message response) {
+        return response.getHeader() != null && response.getHeader().startsWith(OK);
+    }
+
+    private Object getResponse(RpcMethod rpc, Message request) {
+        Message response = tcpClient.sendAndReceive(request);
+        if (isOk(response)) {
+            return rpc.decodeResult(response);
+        } else {
+            throw new MovieRentalsException(response.getBody());
+        }
+    }
+
+    private int getStreamedResponse(RpcMethod rpc, Message request, Consumer<Object> chunks) {
+        Message response = tcpClient.sendAndStream(request, chunk -> chunks.accept(rpc.decodeResult(chunk)));
+        if (isOk(response)) {
+            return response.getBodyReader().readInt();
+        } else {
+            throw new MovieRentalsException(response.getBody());
+        }
+    }
+
+    private CompletableFuture<Void> subscribe(RpcMethod rpc, Message request, Consumer<Object> events) {
+        CompletableFuture<Message> end = tcpClient.subscribe(request, event -> events.accept(rpc.decodeResult(event)));
+        CompletableFuture<Void> subscription = end.thenApply(response -> {
+            if (!isOk(response)) {
+                throw new MovieRentalsException(response.getBody());
+            }
+            return null;
+        });
+        subscription.whenComplete((ignored, error) -> end.cancel(false));
+        return subscription;
+    }
+
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "ServiceStub{" + serviceInterface.getSimpleName() + '}';
+            default:
+                throw new UnsupportedOperationException(method.toString());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.movierentals.client.tcp;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A bounded pool of {@link MultiplexedConnection}s.
+ * <p>
+ * A semaphore caps the number of open connections. Idle connections are handed out
+ * last-in first-out so bursts reuse the warmest sockets, and each one is checked on
+ * checkout so a connection the server has dropped is never returned to a caller.
+ */
+class ConnectionPool implements AutoCloseable {
+    private final ConnectionPoolConfig config;
+    private final Semaphore permits;
+    private final Deque<MultiplexedConnection> idle = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed;
+
+    ConnectionPool(ConnectionPoolConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxTotal(), true);
+        fillMinIdle();
+    }
+
+    /**
+     * Waits up to the configured borrow timeout for a healthy connection, opening a new
+     * one if the pool has none idle and is below its limit.
+     *
+     * @throws TimeoutException if every connection stayed borrowed for the whole timeout.
+     * @throws IOException if a new connection could not be opened.
+     */
+    MultiplexedConnection borrow() throws IOException, InterruptedException, TimeoutException {
+        if (closed) {
+            throw new IOException("Connection pool is closed.");
+        }
+        if (!permits.tryAcquire(config.getBorrowTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("No connection available within " + config.getBorrowTimeout() + ".");
+        }
+        return checkout();
+    }
+
+    /**
+     * Like {@link #borrow()}, but returns {@code null} at once instead of waiting when
+     * every connection is borrowed.
+     *
+     * @throws IOException if a new connection could not be opened.
+     */
+    MultiplexedConnection tryBorrow() throws IOException {
+        if (closed || !permits.tryAcquire()) {
+            return null;
+        }
+        return checkout();
+    }
+
+    /**
+     * Hands out a healthy idle connection, or a new one, for a permit already taken.
+     */
+    private MultiplexedConnection checkout() throws IOException {
+        try {
+            MultiplexedConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (connection.isHealthy()) {
+                    return connection;
+                }
+                connection.close();
+            }
+            return open();
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a borrowed connection. Broken connections and those above the idle limit are closed.
+     */
+    void release(MultiplexedConnection connection) {
+        if (closed || !connection.isHealthy() || idle.size() >= config.getMaxIdle()) {
+            connection.close();
+        } else {
+            idle.offerFirst(connection);
+        }
+        permits.release();
+    }
+
+    /**
+     * Opens a new connection to the configured server. Connections opened directly,
+     * rather than borrowed, do not count against the pool's limit.
+     */
+    MultiplexedConnection open() throws IOException {
+        return new MultiplexedConnection(config.getHost(), config.getPort(), config.getCompression());
+    }
+
+    private void fillMinIdle() {
+        int toOpen = Math.min(config.getMinIdle(), config.getMaxIdle());
+        for (int i = 0; i < toOpen; i++) {
+            try {
+                idle.offerFirst(open());
+            } catch (IOException e) {
+                // the server may not be up yet, connections will be opened on demand
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        MultiplexedConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.movierentals.client.tcp;
+
+import java.time.Duration;
+
+/**
+ * Settings for the {@link TcpClient} connection pool.
+ */
+public class ConnectionPoolConfig {
+    private String host = "localhost";
+    private int port = 1234;
+    private int minIdle = 1;
+    private int maxIdle = 8;
+    private int maxTotal = 8;
+    private Duration borrowTimeout = Duration.ofSeconds(5);
+    private String compression = "lz4,deflate";
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+    public ConnectionPoolConfig() {
+    }
+
+    public ConnectionPoolConfig(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Reads the settings from {@code client.*} system properties, falling back to the defaults.
+     */
+    public static ConnectionPoolConfig fromSystemProperties() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setHost(System.getProperty("client.host", config.getHost()));
+        config.setPort(Integer.getInteger("client.port", config.getPort()));
+        config.setMinIdle(Integer.getInteger("client.pool.minIdle", config.getMinIdle()));
+        config.setMaxIdle(Integer.getInteger("client.pool.maxIdle", config.getMaxIdle()));
+        config.setMaxTotal(Integer.getInteger("client.pool.maxTotal", config.getMaxTotal()));
+        config.setBorrowTimeout(Duration.ofMillis(Long.getLong("client.pool.borrowTimeoutMillis",
+                config.getBorrowTimeout().toMillis())));
+        config.setCompression(System.getProperty("client.compression", config.getCompression()));
+        config.setRequestTimeout(Duration.ofMillis(Long.getLong("client.requestTimeoutMillis",
+                config.getRequestTimeout().toMillis())));
+        return config;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Connections opened up front and kept warm even when nobody is using them.
+     */
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    /**
+     * Idle connections above this number are closed when they are returned.
+     */
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public void setMaxIdle(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Upper bound on open connections, borrowed and idle together.
+     */
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    /**
+     * How long a caller waits for a connection when all of them are borrowed.
+     */
+    public Duration getBorrowTimeout() {
+        return borrowTimeout;
+    }
+
+    public void setBorrowTimeout(Duration borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    /**
+     * Payload compression codecs offered to the server, most preferred first
+     * ({@code lz4}, {@code deflate} or {@code none}).
+     */
+    public String getCompression() {
+        return compression;
+    }
+
+    public void setCompression(String compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Deadline given to requests that do not carry one, except streamed ones. The server
+     * skips requests that reach it too late and stops their database queries when the
+     * time is up.
+     */
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolConfig{" +
+                "host='" + host + '\'' +
+                ", port=" + port +
+                ", minIdle=" + minIdle +
+                ", maxIdle=" + maxIdle +
+                ", maxTotal=" + maxTotal +
+                ", borrowTimeout=" + borrowTimeout +
+                ", compression='" + compression + '\'' +
+                ", requestTimeout=" + requestTimeout +
+                '}';
+    }
+}
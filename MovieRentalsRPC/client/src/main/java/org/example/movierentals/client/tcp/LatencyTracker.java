@@ -0,0 +1,61 @@
+package org.example.movierentals.client.tcp;
+
+import org.example.movierentals.common.Operation;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Recent response times of each operation, from which the hedging delay is taken.
+ */
+class LatencyTracker {
+    private static final int WINDOW = 256;
+    private static final int MIN_SAMPLES = 20;
+
+    private final Map<Operation, Window> windows = new EnumMap<>(Operation.class);
+
+    LatencyTracker() {
+        for (Operation operation : Operation.values()) {
+            windows.put(operation, new Window());
+        }
+    }
+
+    void record(Operation operation, long nanos) {
+        windows.get(operation).record(nanos);
+    }
+
+    /**
+     * @param percentile between 0 and 1.
+     * @return the given percentile of the last {@value #WINDOW} response times in
+     * nanoseconds, or -1 while fewer than {@value #MIN_SAMPLES} have been recorded.
+     */
+    long percentile(Operation operation, double percentile) {
+        return windows.get(operation).percentile(percentile);
+    }
+
+    private static class Window {
+        private final long[] samples = new long[WINDOW];
+        private int count;
+        private int next;
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % WINDOW;
+            count = Math.min(count + 1, WINDOW);
+        }
+
+        long percentile(double percentile) {
+            long[] sorted;
+            synchronized (this) {
+                if (count < MIN_SAMPLES) {
+                    return -1;
+                }
+                sorted = Arrays.copyOf(samples, count);
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
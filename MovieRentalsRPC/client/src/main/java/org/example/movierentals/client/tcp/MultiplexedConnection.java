@@ -0,0 +1,260 @@
+package org.example.movierentals.client.tcp;
+
+import org.example.movierentals.common.BufferPool;
+import org.example.movierentals.common.Compression;
+import org.example.movierentals.common.FrameCodec;
+import org.example.movierentals.common.Message;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A long-lived connection to the server that carries many requests at once.
+ * Every request gets a fresh correlation id; a reader thread completes the matching
+ * future when the response arrives, in whatever order the server answers.
+ */
+class MultiplexedConnection implements AutoCloseable {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int HELLO_TIMEOUT_SECONDS = 5;
+
+    private final SocketChannel channel;
+    private final BufferPool pool = BufferPool.shared();
+    private ByteBuffer outbox;
+    private final FrameCodec readCodec = new FrameCodec();
+    private final FrameCodec writeCodec = new FrameCodec();
+    private final AtomicLong nextCorrelationId = new AtomicLong();
+    private final Map<Long, CompletableFuture<Message>> pending = new ConcurrentHashMap<>();
+    private final Map<Long, Consumer<Message>> streamConsumers = new ConcurrentHashMap<>();
+    private volatile boolean open = true;
+    private volatile boolean readerRunning = true;
+
+    /**
+     * Opens the connection and agrees on payload compression with the server.
+     *
+     * @param compressionOffer comma separated codec names, most preferred first.
+     */
+    MultiplexedConnection(String host, int port, String compressionOffer) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+
+        Thread reader = new Thread(this::readResponses, "tcp-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        negotiateCompression(compressionOffer);
+    }
+
+    private void negotiateCompression(String offer) throws IOException {
+        if (Compression.negotiate(offer) == Compression.NONE) {
+            return;
+        }
+        try {
+            Message response = send(new Message(Message.HELLO, offer)).get(HELLO_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Compression chosen = Compression.fromWireName(response.getBody());
+            synchronized (writeCodec) {
+                writeCodec.setCompression(chosen);
+            }
+        } catch (ExecutionException | TimeoutException | IllegalArgumentException e) {
+            close();
+            throw new IOException("Compression negotiation failed.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IOException("Interrupted while negotiating compression.", e);
+        }
+    }
+
+
+    /**
+     * Health check used on pool checkout and release. A connection the server closed is
+     * noticed by the reader thread, which marks it closed straight away; one whose reader
+     * has stopped for any reason, a malformed frame included, is never healthy again,
+     * since nothing would complete its responses.
+     */
+    boolean isHealthy() {
+        return open && readerRunning && channel.isOpen() && channel.isConnected();
+    }
+
+    CompletableFuture<Message> send(Message request) {
+        return sendAll(List.of(request)).get(0);
+    }
+
+    /**
+     * Writes all requests back-to-back and flushes once, without waiting for any response.
+     *
+     * @return one future per request, in request order.
+     */
+    List<CompletableFuture<Message>> sendAll(List<Message> requests) {
+        List<CompletableFuture<Message>> responses = new ArrayList<>(requests.size());
+        for (Message request : requests) {
+            responses.add(register(request));
+        }
+        write(requests, responses);
+        return responses;
+    }
+
+    /**
+     * Sends a request whose response is streamed. Every chunk is passed to {@code chunks}
+     * on the reader thread as it arrives, so a slow consumer slows the server down instead
+     * of buffering the stream in memory.
+     *
+     * @return a future completed with the frame that ends the stream.
+     */
+    CompletableFuture<Message> sendStreaming(Message request, Consumer<Message> chunks) {
+        CompletableFuture<Message> response = register(request);
+        streamConsumers.put(request.getCorrelationId(), chunks);
+        write(List.of(request), List.of(response));
+        return response;
+    }
+
+    /**
+     * Assigns a correlation id and a future for the response. A request with a deadline
+     * gets a future that fails with a {@link TimeoutException} once the deadline passes;
+     * a response arriving after that is dropped.
+     */
+    private CompletableFuture<Message> register(Message request) {
+        long correlationId = nextCorrelationId.incrementAndGet();
+        request.setCorrelationId(correlationId);
+        CompletableFuture<Message> response = new CompletableFuture<>();
+        pending.put(correlationId, response);
+        if (request.hasDeadline()) {
+            response.orTimeout(request.getDeadline() - System.nanoTime(), TimeUnit.NANOSECONDS)
+                    .whenComplete((message, error) -> {
+                        if (error instanceof TimeoutException) {
+                            pending.remove(correlationId);
+                            streamConsumers.remove(correlationId);
+                        }
+                    });
+        }
+        return response;
+    }
+
+    private void write(List<Message> requests, List<CompletableFuture<Message>> responses) {
+        try {
+            synchronized (writeCodec) {
+                for (Message request : requests) {
+                    buffer(writeCodec.encode(request));
+                }
+                flush();
+            }
+        } catch (IOException e) {
+            requests.forEach(request -> {
+                pending.remove(request.getCorrelationId());
+                streamConsumers.remove(request.getCorrelationId());
+            });
+            close();
+            responses.forEach(response -> response.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Collects small frames in the outbox so back-to-back requests go out in one write;
+     * a frame larger than the outbox is written straight from the codec's buffer.
+     */
+    private void buffer(ByteBuffer frame) throws IOException {
+        if (outbox == null) {
+            outbox = pool.acquire(WRITE_BUFFER_SIZE);
+        }
+        if (frame.remaining() > outbox.remaining()) {
+            flush();
+        }
+        if (frame.remaining() > outbox.remaining()) {
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+        } else {
+            outbox.put(frame);
+        }
+    }
+
+    private void flush() throws IOException {
+        if (outbox == null) {
+            return;
+        }
+        outbox.flip();
+        while (outbox.hasRemaining()) {
+            channel.write(outbox);
+        }
+        outbox.clear();
+    }
+
+    private void readResponses() {
+        try {
+            while (open) {
+                Message response = readCodec.read(channel);
+                if (response.isMore()) {
+                    Consumer<Message> chunks = streamConsumers.get(response.getCorrelationId());
+                    if (chunks != null) {
+                        deliverChunk(chunks, response);
+                    }
+                    continue;
+                }
+                streamConsumers.remove(response.getCorrelationId());
+                CompletableFuture<Message> future = pending.remove(response.getCorrelationId());
+                if (future != null) {
+                    future.complete(response);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (open) {
+                failPending(e);
+            }
+        } finally {
+            readerRunning = false;
+            close();
+            readCodec.close();
+        }
+    }
+
+    /**
+     * A consumer that throws ends the stream for its caller only; the rest of the stream
+     * is read and dropped so the connection stays usable.
+     */
+    private void deliverChunk(Consumer<Message> chunks, Message chunk) {
+        try {
+            chunks.accept(chunk);
+        } catch (RuntimeException e) {
+            streamConsumers.remove(chunk.getCorrelationId());
+            CompletableFuture<Message> future = pending.remove(chunk.getCorrelationId());
+            if (future != null) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void failPending(Throwable cause) {
+        pending.values().forEach(future -> future.completeExceptionally(cause));
+        pending.clear();
+        streamConsumers.clear();
+    }
+
+    @Override
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        failPending(new IOException("Connection closed."));
+        synchronized (writeCodec) {
+            writeCodec.close();
+            pool.release(outbox);
+            outbox = null;
+        }
+    }
+}
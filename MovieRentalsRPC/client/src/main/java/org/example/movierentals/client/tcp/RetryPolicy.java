@@ -0,0 +1,128 @@
+package org.example.movierentals.client.tcp;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When the {@link TcpClient} sends a request again.
+ * <p>
+ * A request the server refused as busy was never run, so it is retried whatever its
+ * operation. A request whose connection failed may or may not have been run, so it is
+ * retried only if its operation is idempotent. Either way the client waits an
+ * exponentially growing, randomly jittered backoff first, and never past the request's
+ * deadline.
+ * <p>
+ * With hedging on, an idempotent request still unanswered after the configured
+ * percentile of its operation's recent latencies is sent a second time, and the first
+ * response wins. This spends about one extra request in twenty to cut the slow tail.
+ */
+public class RetryPolicy {
+    private int maxAttempts = 3;
+    private Duration initialBackoff = Duration.ofMillis(50);
+    private Duration maxBackoff = Duration.ofSeconds(2);
+    private boolean hedging;
+    private double hedgePercentile = 0.95;
+
+    public RetryPolicy() {
+    }
+
+    /**
+     * Reads the settings from {@code client.retry.*} and {@code client.hedge.*} system
+     * properties, falling back to the defaults.
+     */
+    public static RetryPolicy fromSystemProperties() {
+        RetryPolicy policy = new RetryPolicy();
+        policy.setMaxAttempts(Integer.getInteger("client.retry.maxAttempts", policy.getMaxAttempts()));
+        policy.setInitialBackoff(Duration.ofMillis(Long.getLong("client.retry.initialBackoffMillis",
+                policy.getInitialBackoff().toMillis())));
+        policy.setMaxBackoff(Duration.ofMillis(Long.getLong("client.retry.maxBackoffMillis",
+                policy.getMaxBackoff().toMillis())));
+        policy.setHedging(Boolean.getBoolean("client.hedge.enabled"));
+        policy.setHedgePercentile(Double.parseDouble(System.getProperty("client.hedge.percentile",
+                String.valueOf(policy.getHedgePercentile()))));
+        return policy;
+    }
+
+    /**
+     * A policy that sends every request once.
+     */
+    public static RetryPolicy none() {
+        RetryPolicy policy = new RetryPolicy();
+        policy.setMaxAttempts(1);
+        return policy;
+    }
+
+    /**
+     * How long to wait before the given retry: a random time up to the initial backoff
+     * doubled once per earlier retry, capped at the maximum backoff.
+     *
+     * @param retry 1 for the first retry.
+     */
+    long backoffMillis(int retry) {
+        long ceiling = initialBackoff.toMillis() << Math.min(retry - 1, 30);
+        if (ceiling <= 0 || ceiling > maxBackoff.toMillis()) {
+            ceiling = maxBackoff.toMillis();
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Attempts per request, the first one included; 1 turns retries off.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(Duration initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Whether slow idempotent requests are sent a second time.
+     */
+    public boolean isHedging() {
+        return hedging;
+    }
+
+    public void setHedging(boolean hedging) {
+        this.hedging = hedging;
+    }
+
+    /**
+     * The latency percentile, between 0 and 1, after which a request is hedged.
+     */
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", initialBackoff=" + initialBackoff +
+                ", maxBackoff=" + maxBackoff +
+                ", hedging=" + hedging +
+                ", hedgePercentile=" + hedgePercentile +
+                '}';
+    }
+}
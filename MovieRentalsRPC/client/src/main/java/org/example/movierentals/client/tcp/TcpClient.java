@@ -1,25 +1,275 @@
 package org.example.movierentals.client.tcp;
 
 import org.example.movierentals.common.Message;
+import org.example.movierentals.common.Operation;
+import org.example.movierentals.common.domain.exceptions.MovieRentalsException;
 
 import java.io.IOException;
-import java.net.Socket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
-public class TcpClient {
-    public Message sendAndReceive(Message request) {
-        try (Socket socket = new Socket("localhost", 1234);
-             var is = socket.getInputStream();
-             var os = socket.getOutputStream()) {
+/**
+ * Sends requests over a bounded pool of persistent, multiplexed connections, retrying
+ * and hedging single requests as its {@link RetryPolicy} says.
+ */
+public class TcpClient implements AutoCloseable {
+    private static final String OK = "200 OK";
+    private static final String BUSY = "503";
+    private static final String RETRY_AFTER = "Retry after ";
+
+    private final ConnectionPool pool;
+    private final Duration requestTimeout;
+    private final RetryPolicy retryPolicy;
+    private final LatencyTracker latencies = new LatencyTracker();
 
-            request.writeTo(os);
+    public TcpClient() {
+        this(new ConnectionPoolConfig());
+    }
 
-            Message response = new Message();
-            response.readFrom(is);
-            return response;
+    public TcpClient(ConnectionPoolConfig config) {
+        this(config, new RetryPolicy());
+    }
 
+    public TcpClient(ConnectionPoolConfig config, RetryPolicy retryPolicy) {
+        this.pool = new ConnectionPool(config);
+        this.requestTimeout = config.getRequestTimeout();
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Gives the request the default deadline unless the caller has set one.
+     */
+    private void attachDeadline(Message request) {
+        if (!request.hasDeadline()) {
+            request.setTimeout(requestTimeout);
+        }
+    }
+
+    /**
+     * Sends the request and waits for its response. A busy server is asked again after
+     * the time it suggests, and an idempotent request whose connection failed is sent
+     * again, up to the attempts the retry policy allows and within the request's deadline.
+     *
+     * @return the response; a busy response if the server stayed busy on every attempt.
+     */
+    public Message sendAndReceive(Message request) {
+        attachDeadline(request);
+        Operation operation = Operation.fromOpcode(request.getOpcode());
+        boolean idempotent = operation != null && operation.isIdempotent();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                boolean mayRetry = attempt < retryPolicy.getMaxAttempts();
+                long backoff = retryPolicy.backoffMillis(attempt);
+                try {
+                    Message response = exchange(request, operation, idempotent);
+                    if (!mayRetry || !isBusy(response)
+                            || !waitToRetry(request, Math.max(backoff, retryAfterMillis(response)))) {
+                        return response;
+                    }
+                } catch (IOException | ExecutionException e) {
+                    if (!mayRetry || !idempotent || !isConnectionFailure(e) || !waitToRetry(request, backoff)) {
+                        throw e;
+                    }
+                }
+            }
+        } catch (IOException | ExecutionException | TimeoutException e) {
+            e.printStackTrace();
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Sends the request once on a pooled connection. If hedging is on and an idempotent
+     * request is still unanswered after the usual slow-end latency of its operation, a
+     * copy of it is sent on a second pooled connection, if one is free, and whichever
+     * response arrives first is returned. Both connections go back to the pool then.
+     */
+    private Message exchange(Message request, Operation operation, boolean idempotent)
+            throws IOException, ExecutionException, TimeoutException, InterruptedException {
+        MultiplexedConnection connection = pool.borrow();
+        try {
+            long start = System.nanoTime();
+            CompletableFuture<Message> response = connection.send(request);
+            if (operation != null) {
+                response.thenAccept(message -> {
+                    if (!isBusy(message)) {
+                        latencies.record(operation, System.nanoTime() - start);
+                    }
+                });
+            }
+            long hedgeDelay = idempotent && retryPolicy.isHedging()
+                    ? latencies.percentile(operation, retryPolicy.getHedgePercentile()) : -1;
+            if (hedgeDelay < 0 || request.hasDeadline() && request.getDeadline() - start <= hedgeDelay) {
+                return response.get();
+            }
+            try {
+                return response.get(hedgeDelay, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                MultiplexedConnection second = borrowForHedge();
+                if (second == null) {
+                    return response.get();
+                }
+                try {
+                    CompletableFuture<Message> hedge = second.send(request.copy());
+                    return (Message) CompletableFuture.anyOf(response, hedge).get();
+                } finally {
+                    pool.release(second);
+                }
+            }
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    /**
+     * @return a second connection for a hedged request, or {@code null} if none is free;
+     * a hedge never waits for the pool or fails the request.
+     */
+    private MultiplexedConnection borrowForHedge() {
+        try {
+            return pool.tryBorrow();
         } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBusy(Message response) {
+        return response.getHeader() != null && response.getHeader().startsWith(BUSY);
+    }
+
+    /**
+     * @return the wait a busy response suggests, or 0 if it suggests none.
+     */
+    private static long retryAfterMillis(Message response) {
+        String body = response.getBody();
+        if (body == null || !body.startsWith(RETRY_AFTER)) {
+            return 0;
+        }
+        int end = body.indexOf(' ', RETRY_AFTER.length());
+        try {
+            return Long.parseLong(body.substring(RETRY_AFTER.length(), end < 0 ? body.length() : end));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * A failure to connect or a dropped connection; a request that ran out of time is not one.
+     */
+    private static boolean isConnectionFailure(Exception e) {
+        return e instanceof IOException || e.getCause() instanceof IOException;
+    }
+
+    /**
+     * Sleeps before the next attempt, unless the request's deadline would pass meanwhile.
+     *
+     * @return false if there is no time left for another attempt.
+     */
+    private static boolean waitToRetry(Message request, long millis) throws InterruptedException {
+        if (millis >= request.remainingMillis()) {
+            return false;
+        }
+        Thread.sleep(millis);
+        return true;
+    }
+
+    /**
+     * Sends a request whose response is streamed in chunks. Each chunk frame is handed to
+     * {@code chunks} as soon as it arrives; the connection stays borrowed until the end.
+     * <p>
+     * A stream gets no default deadline: how long it lasts depends on its size and on how
+     * fast {@code chunks} takes them, so only a deadline the caller set on the request bounds it.
+     *
+     * @return the frame that ends the stream, carrying the final status.
+     */
+    public Message sendAndStream(Message request, Consumer<Message> chunks) {
+        try {
+            MultiplexedConnection connection = pool.borrow();
+            try {
+                return connection.sendStreaming(request, chunks).get();
+            } finally {
+                pool.release(connection);
+            }
+        } catch (IOException | ExecutionException | TimeoutException e) {
             e.printStackTrace();
             throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Sends the requests as one batch frame; the server runs them in order and answers
+     * with a single frame.
+     *
+     * @return the response to each request, in request order, each with its own status header.
+     * @throws MovieRentalsException if the server answered the batch as a whole with an
+     *                               error, busy or deadline status instead of running it.
+     */
+    public List<Message> sendBatch(List<Message> requests) {
+        Message response = sendAndReceive(Message.batch(requests));
+        if (response.getHeader() == null || !response.getHeader().startsWith(OK) || response.getParts() == null) {
+            throw new MovieRentalsException(response.getBody());
+        }
+        return response.getParts();
+    }
+
+    /**
+     * Sends all requests back-to-back on one connection without waiting between them,
+     * so a batch of calls pays the network round trip once. The connection is returned
+     * to the pool when the last response has arrived.
+     *
+     * @return one future per request, in request order; responses may complete in any order.
+     */
+    public List<CompletableFuture<Message>> sendPipelined(List<Message> requests) {
+        requests.forEach(this::attachDeadline);
+        MultiplexedConnection connection;
+        try {
+            connection = pool.borrow();
+        } catch (IOException | TimeoutException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        List<CompletableFuture<Message>> responses = connection.sendAll(requests);
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, error) -> pool.release(connection));
+        return responses;
+    }
+
+    /**
+     * Subscribes on a connection of its own, outside the pool, since a subscription
+     * keeps its connection for as long as it lasts. The request is sent without a
+     * deadline. Every event frame the server pushes is handed to {@code events} on the
+     * connection's reader thread.
+     *
+     * @return a future completed with the frame that ends the subscription; cancel it
+     * to unsubscribe, which closes the connection.
+     */
+    public CompletableFuture<Message> subscribe(Message request, Consumer<Message> events) {
+        MultiplexedConnection connection;
+        try {
+            connection = pool.open();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
+        CompletableFuture<Message> end = connection.sendStreaming(request, events);
+        end.whenComplete((response, error) -> connection.close());
+        return end;
+    }
+
+    @Override
+    public void close() {
+        pool.close();
     }
 }
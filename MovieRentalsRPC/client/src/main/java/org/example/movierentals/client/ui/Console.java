@@ -1,8 +1,5 @@
 package org.example.movierentals.client.ui;
 
-import org.example.movierentals.client.service.CClientServiceImpl;
-import org.example.movierentals.client.service.CMovieServiceImpl;
-import org.example.movierentals.client.service.CRentalServiceImpl;
 import org.example.movierentals.common.IClientService;
 import org.example.movierentals.common.IMovieService;
 import org.example.movierentals.common.IRentalService;
@@ -13,9 +10,9 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 
@@ -25,7 +22,7 @@ public class Console {
     private IClientService clientService;
     private IRentalService rentalService;
 
-    public Console(CMovieServiceImpl movieService, CClientServiceImpl clientService, CRentalServiceImpl rentalService) {
+    public Console(IMovieService movieService, IClientService clientService, IRentalService rentalService) {
         this.movieService = movieService;
         this.clientService = clientService;
         this.rentalService = rentalService;
@@ -89,6 +86,7 @@ public class Console {
             System.out.println("4. Update Movie");
             System.out.println("5. Delete Movie");
             System.out.println("6. Filter Movies by Keyword");
+            System.out.println("7. Watch Movie Changes");
             System.out.println("0. Back");
             System.out.print("\nEnter your option: ");
 
@@ -113,6 +111,9 @@ public class Console {
                     case 6:
                         this.handleFilterMoviesByKeyword();
                         break;
+                    case 7:
+                        this.handleWatchMovieChanges();
+                        break;
                     case 0:
                         return;
                     default:
@@ -131,27 +132,10 @@ public class Console {
     private void handleFilterMoviesByKeyword() {
         System.out.print("Enter the filter keyword: ");
         String keyword = scanner.next();
-        Set<Movie> moviesSet = new HashSet<>();
         try {
-            String response = movieService.filterMoviesByKeyword(keyword).get();
+            List<Movie> response = movieService.filterMoviesByKeyword(keyword).get();
             if (response != null) {
-                String[] responseArray = response.split(";");
-                for (String r : responseArray) {
-                    String[] movieArray = r.split(",");
-                    Long movieId = Long.parseLong(movieArray[0]);
-                    String title = movieArray[1];
-                    int year = Integer.parseInt(movieArray[2]);
-                    MovieGenres genre = MovieGenres.valueOf(movieArray[3]);
-                    AgeRestrictions ageRestrictions = AgeRestrictions.valueOf(movieArray[4]);
-                    float rentalPrice = Float.parseFloat(movieArray[5]);
-                    boolean available = Boolean.parseBoolean(movieArray[6]);
-
-                    Movie movie = new Movie(title, year, genre, ageRestrictions, rentalPrice, available);
-                    movie.setId(movieId);
-
-                    moviesSet.add(movie);
-                }
-                moviesSet.forEach(System.out::println);
+                response.forEach(System.out::println);
             } else {
                 System.out.println("Response not returned.");
             }
@@ -177,20 +161,8 @@ public class Console {
             }
         }
         try {
-            String response = movieService.deleteMovieById(id).get();
-            if (response != null) {
-                String[] responseArray = response.split(",");
-                Long movieId = Long.parseLong(responseArray[0]);
-                String title = responseArray[1];
-                int year = Integer.parseInt(responseArray[2]);
-                MovieGenres genre = MovieGenres.valueOf(responseArray[3]);
-                AgeRestrictions ageRestrictions = AgeRestrictions.valueOf(responseArray[4]);
-                float rentalPrice = Float.parseFloat(responseArray[5]);
-                boolean available = Boolean.parseBoolean(responseArray[6]);
-
-                Movie deletedMovie = new Movie(title, year, genre, ageRestrictions, rentalPrice, available);
-                deletedMovie.setId(movieId);
-
+            Movie deletedMovie = movieService.deleteMovieById(id).get();
+            if (deletedMovie != null) {
                 System.out.println("Movie was successfully deleted.");
                 System.out.println(deletedMovie);
             } else {
@@ -220,20 +192,8 @@ public class Console {
         try {
             Movie movie = readMovie();
             movie.setId(id);
-            String response = movieService.updateMovie(movie).get();
-            if (response != null) {
-                String[] responseArray = response.split(",");
-                Long movieId = Long.parseLong(responseArray[0]);
-                String title = responseArray[1];
-                int year = Integer.parseInt(responseArray[2]);
-                MovieGenres genre = MovieGenres.valueOf(responseArray[3]);
-                AgeRestrictions ageRestrictions = AgeRestrictions.valueOf(responseArray[4]);
-                float rentalPrice = Float.parseFloat(responseArray[5]);
-                boolean available = Boolean.parseBoolean(responseArray[6]);
-
-                Movie updatedMovie = new Movie(title, year, genre, ageRestrictions, rentalPrice, available);
-                updatedMovie.setId(movieId);
-
+            Movie updatedMovie = movieService.updateMovie(movie).get();
+            if (updatedMovie != null) {
                 System.out.println("Movie updated successfully.");
                 System.out.println(updatedMovie);
             } else {
@@ -261,20 +221,8 @@ public class Console {
             }
         }
         try {
-            String response = movieService.getMovieById(id).get();
-            if (response != null) {
-                String[] responseArray = response.split(",");
-                long movieId = Long.parseLong(responseArray[0]);
-                String title = responseArray[1];
-                int year = Integer.parseInt(responseArray[2]);
-                MovieGenres genre = MovieGenres.valueOf(responseArray[3]);
-                AgeRestrictions ageRestriction = AgeRestrictions.valueOf(responseArray[4]);
-                float rentalPrice = Float.parseFloat(responseArray[5]);
-                boolean available = Boolean.parseBoolean(responseArray[6]);
-
-                Movie movie = new Movie(title, year, genre, ageRestriction, rentalPrice, available);
-                movie.setId(movieId);
-
+            Movie movie = movieService.getMovieById(id).get();
+            if (movie != null) {
                 System.out.println(movie);
             } else {
                 System.err.println("Response not returned.");
@@ -295,17 +243,8 @@ public class Console {
     private void handleAddMovie() {
         try {
             Movie movie = readMovie();
-            String response = movieService.addMovie(movie).get();
-            if (response != null) {
-                String[] responseArray = response.split(",");
-                String title = responseArray[1];
-                int year = Integer.parseInt(responseArray[2]);
-                MovieGenres genre = MovieGenres.valueOf(responseArray[3]);
-                AgeRestrictions ageRestriction = AgeRestrictions.valueOf(responseArray[4]);
-                float rentalPrice = Float.parseFloat(responseArray[5]);
-                boolean available = Boolean.parseBoolean(responseArray[6]);
-
-                Movie savedMovie = new Movie(title, year, genre, ageRestriction, rentalPrice, available);
+            Movie savedMovie = movieService.addMovie(movie).get();
+            if (savedMovie != null) {
                 System.out.println("Movie saved successfully:");
                 System.out.println(savedMovie);
             } else {
@@ -325,29 +264,8 @@ public class Console {
      * Handle Get All Movies feature.
      */
     private void handleGetAllMovies() {
-        List<Movie> moviesList = new ArrayList<>();
         try {
-            String response = movieService.getAllMovies().get();
-            if (response != null) {
-                String[] responseArray = response.split(";");
-                for (int i = 0; i < responseArray.length; i++) {
-                    String[] movieArray = responseArray[i].split(",");
-                    long movieId = Long.parseLong(movieArray[0]);
-                    String title = movieArray[1];
-                    int year = Integer.parseInt(movieArray[2]);
-                    MovieGenres genre = MovieGenres.valueOf(movieArray[3]);
-                    AgeRestrictions ageRestriction = AgeRestrictions.valueOf(movieArray[4]);
-                    float rentalPrice = Float.parseFloat(movieArray[5]);
-                    boolean available = Boolean.parseBoolean(movieArray[6]);
-
-                    Movie movie = new Movie(title, year, genre, ageRestriction, rentalPrice, available);
-                    movie.setId(movieId);
-                    moviesList.add(movie);
-                }
-                moviesList.forEach(System.out::println);
-            } else {
-                System.out.println("Response not returned.");
-            }
+            movieService.streamAllMovies(chunk -> chunk.forEach(System.out::println)).get();
         } catch (InterruptedException | ExecutionException e) {
             if (e.getCause() instanceof MovieRentalsException) {
                 System.err.println(e.getCause().getMessage());
@@ -357,6 +275,22 @@ public class Console {
         }
     }
 
+    /**
+     * Handle Watch Movie Changes feature: prints every change the server pushes until Enter is pressed.
+     */
+    private void handleWatchMovieChanges() {
+        CompletableFuture<Void> subscription = movieService.subscribeMovieChanges(System.out::println);
+        subscription.whenComplete((ignored, e) -> {
+            if (e != null && !(e instanceof CancellationException)) {
+                System.err.println("Subscription ended: " + e.getMessage());
+            }
+        });
+        System.out.println("Watching movie changes, press Enter to stop.");
+        scanner.nextLine();
+        scanner.nextLine();
+        subscription.cancel(false);
+    }
+
 
     /**
      * Read user entered info for a Movie.
@@ -499,26 +433,10 @@ public class Console {
     private void handleFilterClientsByKeyword() {
         System.out.print("Enter the filter keyword: ");
         String keyword = scanner.next();
-        Set<Client> clientsSet = new HashSet<>();
         try {
-            String response = clientService.filterClientsByKeyword(keyword).get();
+            List<Client> response = clientService.filterClientsByKeyword(keyword).get();
             if (response != null) {
-                String[] responseArray = response.split(";");
-                for (String r : responseArray) {
-                    String[] clientArray = r.split(",");
-                    Long clientId = Long.parseLong(clientArray[0]);
-                    String firstName = clientArray[1];
-                    String lastName = clientArray[2];
-                    String dateOfBirth = clientArray[3];
-                    String email = clientArray[4];
-                    boolean subscribe = Boolean.parseBoolean(clientArray[5]);
-
-                    Client client = new Client(firstName, lastName, dateOfBirth, email, subscribe);
-                    client.setId(clientId);
-
-                    clientsSet.add(client);
-                }
-                clientsSet.forEach(System.out::println);
+                response.forEach(System.out::println);
             } else {
                 System.out.println("Response not returned.");
             }
@@ -544,19 +462,8 @@ public class Console {
             }
         }
         try {
-            String response = clientService.deleteClientById(id).get();
-            if (response != null) {
-                String[] responseArray = response.split(",");
-                Long clientId = Long.parseLong(responseArray[0]);
-                String firstName = responseArray[1];
-                String lastName = responseArray[2];
-                String dateOfBirth = responseArray[3];
-                String email = responseArray[4];
-                boolean subscribe = Boolean.parseBoolean(responseArray[5]);
-
-                Client deletedClient = new Client(firstName, lastName, dateOfBirth, email, subscribe);
-                deletedClient.setId(clientId);
-
+            Client deletedClient = clientService.deleteClientById(id).get();
+            if (deletedClient != null) {
                 System.out.println("Client was deleted successfully.");
                 System.out.println(deletedClient);
             } else {
@@ -586,19 +493,8 @@ public class Console {
         try {
             Client client = readClient();
             client.setId(id);
-            String response = clientService.updateClient(client).get();
-            if (response != null) {
-                String[] responseArray = response.split(",");
-                Long clientId = Long.parseLong(responseArray[0]);
-                String firstName = responseArray[1];
-                String lastName = responseArray[2];
-                String dateOfBirth = responseArray[3];
-                String email = responseArray[4];
-                boolean subscribe = Boolean.parseBoolean(responseArray[5]);
-
-                Client updatedClient = new Client(firstName, lastName, dateOfBirth, email, subscribe);
-                updatedClient.setId(clientId);
-
+            Client updatedClient = clientService.updateClient(client).get();
+            if (updatedClient != null) {
                 System.out.println("Client updated successfully.");
                 System.out.println(updatedClient);
             } else {
@@ -617,25 +513,9 @@ public class Console {
      * Handle Get All Clients Feature
      */
     private void handleGetAllClients() {
-        List<Client> clientsList = new ArrayList<>();
         try {
-            String response = clientService.getAllClients().get();
-            if (response != null) {
-                String[] responseArray = response.split(";");
-                for (int i = 0; i < responseArray.length; i++) {
-                    String[] clientsString = responseArray[i].split(",");
-                    long clientId = Long.parseLong(clientsString[0]);
-                    String firstName = clientsString[1];
-                    String lastName = clientsString[2];
-                    String dateOfBirth = clientsString[3];
-                    String email = clientsString[4];
-                    boolean subscribe = Boolean.parseBoolean(clientsString[5]);
-
-                    Client client = new Client(firstName, lastName, dateOfBirth, email, subscribe);
-                    client.setId(clientId);
-
-                    clientsList.add(client);
-                }
+            List<Client> clientsList = clientService.getAllClients().get();
+            if (clientsList != null) {
                 clientsList.forEach(System.out::println);
             } else {
                 System.out.println("Response not returned.");
@@ -661,19 +541,8 @@ public class Console {
             }
         }
         try {
-            String response = clientService.getClientById(id).get();
-            if (response != null) {
-                String[] responseArray = response.split(",");
-                Long clientId = Long.parseLong(responseArray[0]);
-                String firstName = responseArray[1];
-                String lastName = responseArray[2];
-                String dateOfBirth = responseArray[3];
-                String email = responseArray[4];
-                boolean subscribe = Boolean.parseBoolean(responseArray[5]);
-
-                Client client = new Client(firstName, lastName, dateOfBirth, email, subscribe);
-                client.setId(clientId);
-
+            Client client = clientService.getClientById(id).get();
+            if (client != null) {
                 System.out.println(client);
             } else {
                 System.out.println("Response not returned.");
@@ -693,17 +562,8 @@ public class Console {
     private void handleAddClient() {
         try {
             Client client = readClient();
-            String response = clientService.addClient(client).get();
-            System.out.println(response);
-            if (response != null) {
-                String[] responseArray = response.split(",");
-                String firstName = responseArray[0];
-                String lastName = responseArray[1];
-                String dateOfBirth = responseArray[2];
-                String email = responseArray[3];
-                boolean subscribe = Boolean.parseBoolean(responseArray[4]);
-
-                Client savedClient = new Client(firstName, lastName, dateOfBirth, email, subscribe);
+            Client savedClient = clientService.addClient(client).get();
+            if (savedClient != null) {
                 System.out.println("Client saved successfully.");
                 System.out.println(savedClient);
             } else {
@@ -826,67 +686,16 @@ public class Console {
             }
         }
         try {
-            String response = rentalService.generateReportByMovie(id).get();
-            if (response != null) {
-                String[] responseArray = response.split(";");
-
-                //parse Movie
-                String[] movieArray = responseArray[0].split(",");
-                Long movieId = Long.parseLong(movieArray[0]);
-                String title = movieArray[1];
-                int year = Integer.parseInt(movieArray[2]);
-                MovieGenres genre = MovieGenres.valueOf(movieArray[3]);
-                AgeRestrictions ageRestrictions = AgeRestrictions.valueOf(movieArray[4]);
-                float rentalPrice = Float.parseFloat(movieArray[5]);
-                boolean available = Boolean.parseBoolean(movieArray[6]);
-
-                Movie movie = new Movie(title, year, genre, ageRestrictions, rentalPrice, available);
-                movie.setId(movieId);
-
-                //parse ClientList
-                List<Client> clientsList = new ArrayList<>();
-                String[] clientsListArray = responseArray[1].split(",");
-                for (int i = 0; i < clientsListArray.length; i++) {
-                    String[] clientArray = clientsListArray[i].split(":");
-                    Long clientId = Long.parseLong(clientArray[0]);
-                    String firstName = clientArray[1];
-                    String lastName = clientArray[2];
-                    String dateOfBirth = clientArray[3];
-                    String email = clientArray[4];
-                    boolean subscribe = Boolean.parseBoolean(clientArray[5]);
-
-                    Client client = new Client(firstName, lastName, dateOfBirth, email, subscribe);
-                    client.setId(clientId);
-
-                    clientsList.add(client);
-                }
-
-                //parse totalCharges
-                float totalCharges = Float.parseFloat(responseArray[2]);
-
-                //parse datesList
-                List<LocalDateTime> rentDates = new ArrayList<>();
-                String[] datesListArray = responseArray[3].split(",");
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
-                for (int i = 0; i < datesListArray.length; i++) {
-                    LocalDateTime theDate = LocalDateTime.parse(datesListArray[i], formatter);
-                    rentDates.add(theDate);
-                }
-
-                //parse counter
-                int counter = Integer.parseInt(responseArray[4]);
-
-                //crete the report DTO
-                MovieRentReportDTO clientReport = new MovieRentReportDTO(movie, clientsList, totalCharges, rentDates, counter);
-
+            MovieRentReportDTO movieReport = rentalService.generateReportByMovie(id).get();
+            if (movieReport != null) {
                 //print the Report
                 System.out.println("\nMOVIE #" + id + " RENT REPORT");
                 System.out.println("*".repeat(50));
-                System.out.println("Movie information: " + clientReport.getMovie());
-                System.out.println("List of Clients: " + clientReport.getClientsList());
-                System.out.println("Total Charges: $" + clientReport.getTotalCharges());
-                System.out.println("Rent Dates List: " + clientReport.getRentDates());
-                System.out.println("Total number of rents: " + clientReport.getCounter());
+                System.out.println("Movie information: " + movieReport.getMovie());
+                System.out.println("List of Clients: " + movieReport.getClientsList());
+                System.out.println("Total Charges: $" + movieReport.getTotalCharges());
+                System.out.println("Rent Dates List: " + movieReport.getRentDates());
+                System.out.println("Total number of rents: " + movieReport.getCounter());
             } else {
                 System.err.println("Response not returned.");
             }
@@ -912,59 +721,8 @@ public class Console {
             }
         }
         try {
-            String response = rentalService.generateReportByClient(id).get();
-            if (response != null) {
-                String[] responseArray = response.split(";");
-
-                //parse Client
-                String[] clientArray = responseArray[0].split(",");
-                Long clientId = Long.parseLong(clientArray[0]);
-                String firstName = clientArray[1];
-                String lastName = clientArray[2];
-                String dateOfBirth = clientArray[3];
-                String email = clientArray[4];
-                boolean subscribe = Boolean.parseBoolean(clientArray[5]);
-
-                Client client = new Client(firstName, lastName, dateOfBirth, email, subscribe);
-                client.setId(clientId);
-
-                //parse MovieList
-                List<Movie> moviesList = new ArrayList<>();
-                String[] movieListArray = responseArray[1].split(",");
-                for (int i = 0; i < movieListArray.length; i++) {
-                    String[] movieArray = movieListArray[i].split(":");
-                    Long movieId = Long.parseLong(movieArray[0]);
-                    String title = movieArray[1];
-                    int year = Integer.parseInt(movieArray[2]);
-                    MovieGenres genre = MovieGenres.valueOf(movieArray[3]);
-                    AgeRestrictions ageRestrictions = AgeRestrictions.valueOf(movieArray[4]);
-                    float rentalPrice = Float.parseFloat(movieArray[5]);
-                    boolean available = Boolean.parseBoolean(movieArray[6]);
-
-                    Movie movie = new Movie(title, year, genre, ageRestrictions, rentalPrice, available);
-                    movie.setId(movieId);
-
-                    moviesList.add(movie);
-                }
-
-                //parse totalCharges
-                float totalCharges = Float.parseFloat(responseArray[2]);
-
-                //parse datesList
-                List<LocalDateTime> rentDates = new ArrayList<>();
-                String[] datesListArray = responseArray[3].split(",");
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
-                for (int i = 0; i < datesListArray.length; i++) {
-                    LocalDateTime theDate = LocalDateTime.parse(datesListArray[i], formatter);
-                    rentDates.add(theDate);
-                }
-
-                //parse counter
-                int counter = Integer.parseInt(responseArray[4]);
-
-                //crete the report DTO
-                ClientRentReportDTO clientReport = new ClientRentReportDTO(client, moviesList, totalCharges, rentDates, counter);
-
+            ClientRentReportDTO clientReport = rentalService.generateReportByClient(id).get();
+            if (clientReport != null) {
                 //print the Report
                 System.out.println("\nCLIENT #" + id + " RENT REPORT");
                 System.out.println("*".repeat(50));
@@ -990,27 +748,9 @@ public class Console {
      * Handle generate Clients List by rent counter descending Report
      */
     private void handleClientsByRentedMovies() {
-        List<ClientRentalsDTO> clientsList = new ArrayList<>();
         try {
-            String response = rentalService.clientsByRentNumber().get();
-            if (response != null) {
-                String[] responseArray = response.split(";");
-                for (int i = 0; i < responseArray.length; i++) {
-                    String[] clientArray = responseArray[i].split(",");
-                    long clientId = Long.parseLong(clientArray[0]);
-                    String firstName = clientArray[1];
-                    String lastName = clientArray[2];
-                    String dateOfBirth = clientArray[3];
-                    String email = clientArray[4];
-                    boolean subscribe = Boolean.parseBoolean(clientArray[5]);
-                    int rentCounter = Integer.parseInt(clientArray[6]);
-
-                    Client client = new Client(firstName, lastName, dateOfBirth, email, subscribe);
-                    client.setId(clientId);
-
-                    ClientRentalsDTO cDTO = new ClientRentalsDTO(client, rentCounter);
-                    clientsList.add(cDTO);
-                }
+            List<ClientRentalsDTO> clientsList = rentalService.clientsByRentNumber().get();
+            if (clientsList != null) {
                 clientsList.forEach(System.out::println);
             } else {
                 System.out.println("Response not returned.");
@@ -1029,28 +769,9 @@ public class Console {
      * Handle generate Movies List by rent counter descending Report
      */
     private void handleMoviesByRentals() {
-        List<MovieRentalsDTO> moviesList = new ArrayList<>();
         try {
-            String response = rentalService.moviesByRentNumber().get();
-            if (response != null) {
-                String[] responseArray = response.split(";");
-                for (int i = 0; i < responseArray.length; i++) {
-                    String[] movieArray = responseArray[i].split(",");
-                    long movieId = Long.parseLong(movieArray[0]);
-                    String title = movieArray[1];
-                    int year = Integer.parseInt(movieArray[2]);
-                    MovieGenres genre = MovieGenres.valueOf(movieArray[3]);
-                    AgeRestrictions ageRestriction = AgeRestrictions.valueOf(movieArray[4]);
-                    float rentalPrice = Float.parseFloat(movieArray[5]);
-                    boolean available = Boolean.parseBoolean(movieArray[6]);
-                    int rentCounter = Integer.parseInt(movieArray[7]);
-
-                    Movie movie = new Movie(title, year, genre, ageRestriction, rentalPrice, available);
-                    movie.setId(movieId);
-
-                    MovieRentalsDTO mDTO = new MovieRentalsDTO(movie, rentCounter);
-                    moviesList.add(mDTO);
-                }
+            List<MovieRentalsDTO> moviesList = rentalService.moviesByRentNumber().get();
+            if (moviesList != null) {
                 moviesList.forEach(System.out::println);
             } else {
                 System.out.println("Response not returned.");
@@ -1077,22 +798,8 @@ public class Console {
             }
         }
         try {
-            String response = rentalService.deleteMovieRental(rentalId).get();
-            if (response != null) {
-                String[] responseArray = response.split(",");
-
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
-
-                Long rentId = Long.parseLong(responseArray[0]);
-                Long movieId = Long.parseLong(responseArray[1]);
-                Long clientId = Long.parseLong(responseArray[2]);
-                float rentalCharge = Float.parseFloat(responseArray[3]);
-                LocalDateTime rentalDate = LocalDateTime.parse(responseArray[4], formatter);
-                LocalDateTime dueDate = LocalDateTime.parse(responseArray[5], formatter);
-
-                Rental deletedRental = new Rental(movieId, clientId, rentalCharge, rentalDate, dueDate);
-                deletedRental.setId(rentId);
-
+            Rental deletedRental = rentalService.deleteMovieRental(rentalId).get();
+            if (deletedRental != null) {
                 System.out.println("Rental successfully deleted.");
                 System.out.println(deletedRental);
             } else {
@@ -1123,22 +830,8 @@ public class Console {
             Rental rental = readRentTransaction();
             if (rental != null) {
                 rental.setId(id);
-                String response = rentalService.updateRentalTransaction(rental).get();
-                if (response != null) {
-                    String[] responseArray = response.split(",");
-
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS");
-
-                    Long rentalId = Long.parseLong(responseArray[0]);
-                    Long movieId = Long.parseLong(responseArray[1]);
-                    Long clientId = Long.parseLong(responseArray[2]);
-                    float rentalCharge = Float.parseFloat(responseArray[3]);
-                    LocalDateTime rentalDate = LocalDateTime.parse(responseArray[4], formatter);
-                    LocalDateTime dueDate = LocalDateTime.parse(responseArray[5], formatter);
-
-                    Rental updatedRental = new Rental(movieId, clientId, rentalCharge, rentalDate, dueDate);
-                    updatedRental.setId(rentalId);
-
+                Rental updatedRental = rentalService.updateRentalTransaction(rental).get();
+                if (updatedRental != null) {
                     System.out.println("Rental updated successfully.");
                     System.out.println(updatedRental);
                 }
@@ -1161,20 +854,8 @@ public class Console {
         try {
             Rental rental = readRentTransaction();
             if (rental != null) {
-                String response = rentalService.rentAMovie(rental).get();
-                if (response != null) {
-                    String[] responseArray = response.split(",");
-
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS");
-
-                    Long movieId = Long.parseLong(responseArray[0]);
-                    Long clientId = Long.parseLong(responseArray[1]);
-                    float rentalCharge = Float.parseFloat(responseArray[2]);
-                    LocalDateTime rentalDate = LocalDateTime.parse(responseArray[3], formatter);
-                    LocalDateTime dueDate = LocalDateTime.parse(responseArray[4], formatter);
-
-                    Rental savedRental = new Rental(movieId, clientId, rentalCharge, rentalDate, dueDate);
-
+                Rental savedRental = rentalService.rentAMovie(rental).get();
+                if (savedRental != null) {
                     System.out.println("Rental saved successfully.");
                     System.out.println(savedRental);
                 }
@@ -1216,7 +897,7 @@ public class Console {
         }
 
         try {
-            String movieResponse = movieService.getMovieById(movieId).get();
+            Movie movie = movieService.getMovieById(movieId).get();
 
             // Read Client ID
             Long clientId = 0L;
@@ -1234,11 +915,10 @@ public class Console {
             }
 
             try {
-                String clientResponse = clientService.getClientById(clientId).get();
+                clientService.getClientById(clientId).get();
 
                 // Rental Charge
-                String[] movieResponseArray = movieResponse.split(",");
-                float rentalCharge = Float.parseFloat(movieResponseArray[5]);
+                float rentalCharge = movie.getRentalPrice();
 
                 // RentalDate
                 LocalDateTime rentalDate = LocalDateTime.now();
@@ -1277,25 +957,9 @@ public class Console {
             }
         }
         try {
-            String response = rentalService.getRentalById(id).get();
-            if (response != null) {
-
-                String[] rentalString = response.split(",");
-
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
-
-                Long rentalId = Long.parseLong(rentalString[0]);
-                Long movieId = Long.parseLong(rentalString[1]);
-                Long clientId = Long.parseLong(rentalString[2]);
-                float rentalCharge = Float.parseFloat(rentalString[3]);
-                LocalDateTime rentalDate = LocalDateTime.parse(rentalString[4], formatter);
-                LocalDateTime dueDate = LocalDateTime.parse(rentalString[5], formatter);
-
-                Rental rental = new Rental(movieId, clientId, rentalCharge, rentalDate, dueDate);
-                rental.setId(rentalId);
-
+            Rental rental = rentalService.getRentalById(id).get();
+            if (rental != null) {
                 System.out.println(rental);
-
             } else {
                 System.out.println("Response not returned.");
             }
@@ -1313,31 +977,8 @@ public class Console {
      * Handle print all Rentals from Repository
      */
     private void handlePrintAllRentals() {
-        List<Rental> rentalsList = new ArrayList<>();
         try {
-            String response = rentalService.getAllRentals().get();
-            if (response != null) {
-                String[] responseArray = response.split(";");
-
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
-
-                for (int i = 0; i < responseArray.length; i++) {
-                    String[] rentalString = responseArray[i].split(",");
-                    Long rentalId = Long.parseLong(rentalString[0]);
-                    Long movieId = Long.parseLong(rentalString[1]);
-                    Long clientId = Long.parseLong(rentalString[2]);
-                    float rentalCharge = Float.parseFloat(rentalString[3]);
-                    LocalDateTime rentalDate = LocalDateTime.parse(rentalString[4], formatter);
-                    LocalDateTime dueDate = LocalDateTime.parse(rentalString[5], formatter);
-
-                    Rental rental = new Rental(movieId, clientId, rentalCharge, rentalDate, dueDate);
-                    rental.setId(rentalId);
-                    rentalsList.add(rental);
-                }
-                rentalsList.forEach(System.out::println);
-            } else {
-                System.out.println("Response not returned.");
-            }
+            rentalService.streamAllRentals(chunk -> chunk.forEach(System.out::println)).get();
         } catch (InterruptedException | ExecutionException e) {
             if (e.getCause() instanceof MovieRentalsException) {
                 System.err.println(e.getCause().getMessage());
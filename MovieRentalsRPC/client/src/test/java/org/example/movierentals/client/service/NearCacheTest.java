@@ -0,0 +1,101 @@
+package org.example.movierentals.client.service;
+
+import org.example.movierentals.common.domain.AgeRestrictions;
+import org.example.movierentals.common.domain.Movie;
+import org.example.movierentals.common.domain.MovieGenres;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class NearCacheTest {
+    private final NearCache<Long, String> cache = new NearCache<>("movies", 2, Duration.ofMinutes(1));
+
+    @Test
+    void fetchedValueIsCached() {
+        cache.put(1L, "Alien", cache.version());
+
+        assertEquals("Alien", cache.get(1L));
+        assertNull(cache.get(2L));
+    }
+
+    @Test
+    void invalidateDropsTheEntry() {
+        cache.put(1L, "Alien", cache.version());
+
+        cache.invalidate(1L);
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void valueFetchedBeforeAnInvalidationIsNotCached() {
+        long version = cache.version();
+
+        cache.invalidate(2L);
+        cache.put(1L, "Alien", version);
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void valueFetchedAfterAnInvalidationIsCached() {
+        cache.invalidate(1L);
+
+        cache.put(1L, "Alien, edited", cache.version());
+
+        assertEquals("Alien, edited", cache.get(1L));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        cache.put(1L, "Alien", cache.version());
+        cache.put(2L, "Heat", cache.version());
+        cache.get(1L);
+
+        cache.put(3L, "Ran", cache.version());
+
+        assertEquals("Alien", cache.get(1L));
+        assertNull(cache.get(2L));
+        assertEquals("Ran", cache.get(3L));
+    }
+
+    @Test
+    void disabledCacheHoldsNothing() {
+        NearCache<Long, String> disabled = NearCache.disabled("movies");
+
+        disabled.put(1L, "Alien", disabled.version());
+
+        assertFalse(disabled.isEnabled());
+        assertNull(disabled.get(1L));
+    }
+
+    @Test
+    void expiredEntryIsNotReturned() throws InterruptedException {
+        NearCache<Long, String> shortLived = new NearCache<>("movies", 2, Duration.ofMillis(1));
+
+        shortLived.put(1L, "Alien", shortLived.version());
+        Thread.sleep(5);
+
+        assertNull(shortLived.get(1L));
+    }
+
+    @Test
+    void editingAFetchedOrReturnedValueLeavesTheCachedOneAlone() {
+        NearCache<Long, Movie> movies = new NearCache<>("movies", 2, Duration.ofMinutes(1), Movie::new);
+        Movie fetched = new Movie("Alien", 1979, MovieGenres.HORROR, AgeRestrictions.R, 2.99f, true);
+        fetched.setId(1L);
+        movies.put(1L, fetched, movies.version());
+
+        fetched.setTitle("Aliens");
+        movies.get(1L).setRentalPrice(0f);
+
+        Movie cached = movies.get(1L);
+        assertEquals(1L, cached.getId());
+        assertEquals("Alien", cached.getTitle());
+        assertEquals(2.99f, cached.getRentalPrice());
+    }
+}
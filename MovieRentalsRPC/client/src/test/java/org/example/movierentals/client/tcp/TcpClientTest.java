@@ -0,0 +1,103 @@
+package org.example.movierentals.client.tcp;
+
+import org.example.movierentals.common.FrameCodec;
+import org.example.movierentals.common.Message;
+import org.example.movierentals.common.Operation;
+import org.example.movierentals.common.domain.exceptions.MovieRentalsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TcpClientTest {
+    private ServerSocketChannel server;
+    private TcpClient client;
+
+    @AfterEach
+    void close() throws IOException {
+        if (client != null) {
+            client.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void batchRefusedAsAWholeFailsTheCall() throws IOException {
+        startClient(request -> new Message("503 Busy", "Server is shutting down"));
+
+        MovieRentalsException e = assertThrows(MovieRentalsException.class,
+                () -> client.sendBatch(List.of(new Message(Operation.GET_ALL_MOVIES))));
+
+        assertEquals("Server is shutting down", e.getMessage());
+    }
+
+    @Test
+    void batchAnswersComeBackInRequestOrder() throws IOException {
+        startClient(request -> {
+            List<Message> parts = new ArrayList<>();
+            for (Message item : request.getParts()) {
+                parts.add(new Message("200 OK", "answer to " + item.getBody()));
+            }
+            Message response = new Message("200 OK");
+            response.setParts(parts);
+            return response;
+        });
+
+        List<Message> responses = client.sendBatch(List.of(
+                new Message(Operation.GET_MOVIE_BY_ID, "1"), new Message(Operation.GET_MOVIE_BY_ID, "2")));
+
+        assertEquals(2, responses.size());
+        assertEquals("answer to 1", responses.get(0).getBody());
+        assertEquals("answer to 2", responses.get(1).getBody());
+    }
+
+    /**
+     * Starts a server that agrees to no compression and answers every other request with
+     * the given function, then a client of it that sends every request once.
+     */
+    private void startClient(UnaryOperator<Message> answer) throws IOException {
+        server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    SocketChannel channel = server.accept();
+                    Thread connection = new Thread(() -> serve(channel, answer));
+                    connection.setDaemon(true);
+                    connection.start();
+                }
+            } catch (IOException e) {
+                // the test is over
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+        ConnectionPoolConfig config = new ConnectionPoolConfig("127.0.0.1",
+                ((InetSocketAddress) server.getLocalAddress()).getPort());
+        client = new TcpClient(config, RetryPolicy.none());
+    }
+
+    private static void serve(SocketChannel channel, UnaryOperator<Message> answer) {
+        try (channel; FrameCodec codec = new FrameCodec()) {
+            while (true) {
+                Message request = codec.read(channel);
+                Message response = request.hasHeader(Message.HELLO) ? new Message("200 OK", "none")
+                        : answer.apply(request);
+                response.setCorrelationId(request.getCorrelationId());
+                codec.write(response, channel);
+            }
+        } catch (IOException e) {
+            // the client is gone
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.movierentals.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class that travels over RPC. {@link WireTypeProcessor} generates a codec for it
+ * at compile time, {@code <Class>WireCodec} in the same package, which writes its fields
+ * one by one through their getters and reads them back through their setters.
+ * <p>
+ * The class needs a public no-argument constructor and a public getter and setter for
+ * every field, its superclasses' fields included.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface WireType {
+}
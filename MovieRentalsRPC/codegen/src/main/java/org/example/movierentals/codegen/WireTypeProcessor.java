@@ -0,0 +1,241 @@
+package org.example.movierentals.codegen;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code WireCodec} for every class annotated with {@link WireType}.
+ * <p>
+ * The generated codec writes the fields in declaration order, superclass fields first,
+ * with the {@code BinaryWriter} method for their type: primitives through their primitive
+ * getters, {@code Long} ids, strings, enums by ordinal, {@code LocalDateTime}, other wire
+ * types and lists of them. It reads them back in the same order into a new instance
+ * through the setters. A field of any other type is a compile error.
+ */
+@SupportedAnnotationTypes("org.example.movierentals.codegen.WireType")
+public class WireTypeProcessor extends AbstractProcessor {
+    private static final String COMMON = "org.example.movierentals.common";
+    private static final String SUFFIX = "WireCodec";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (Element element : round.getElementsAnnotatedWith(WireType.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@WireType applies to classes only.");
+                continue;
+            }
+            try {
+                generate((TypeElement) element);
+            } catch (UnsupportedFieldException e) {
+                error(e.element, e.getMessage());
+            } catch (IOException e) {
+                error(element, "Could not write the codec: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) throws IOException, UnsupportedFieldException {
+        if (ElementFilter.constructorsIn(type.getEnclosedElements()).stream().noneMatch(constructor ->
+                constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC))) {
+            throw new UnsupportedFieldException(type, type.getSimpleName() + " needs a public no-argument constructor.");
+        }
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String typeName = type.getQualifiedName().toString();
+        String codecName = type.getSimpleName() + SUFFIX;
+
+        Map<String, String> enumConstants = new LinkedHashMap<>();
+        StringBuilder writes = new StringBuilder();
+        StringBuilder reads = new StringBuilder();
+        for (VariableElement field : fields(type)) {
+            TypeMirror fieldType = processingEnv.getTypeUtils().asMemberOf((DeclaredType) type.asType(), field);
+            String name = field.getSimpleName().toString();
+            String getter = accessor(type, field, getterName(name, fieldType), 0);
+            String setter = accessor(type, field, "set" + capitalize(name), 1);
+            String value = "value." + getter + "()";
+            String[] codec = codec(field, fieldType, value, enumConstants);
+            writes.append("        out.").append(codec[0]).append(";\n");
+            reads.append("        value.").append(setter).append("(in.").append(codec[1]).append(");\n");
+        }
+
+        try (Writer out = processingEnv.getFiler().createSourceFile(packageName + "." + codecName, type).openWriter()) {
+            out.write("package " + packageName + ";\n\n");
+            out.write("import " + COMMON + ".BinaryReader;\n");
+            out.write("import " + COMMON + ".BinaryWriter;\n");
+            out.write("import " + COMMON + ".WireCodec;\n\n");
+            out.write("/**\n * Binary codec of {@link " + typeName + "}, generated from its fields.\n */\n");
+            out.write("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")\n");
+            out.write("public final class " + codecName + " implements WireCodec<" + typeName + "> {\n");
+            out.write("    public static final " + codecName + " INSTANCE = new " + codecName + "();\n");
+            for (Map.Entry<String, String> constants : enumConstants.entrySet()) {
+                out.write("    private static final " + constants.getKey() + "[] " + constants.getValue()
+                        + " = " + constants.getKey() + ".values();\n");
+            }
+            out.write("\n    private " + codecName + "() {\n    }\n\n");
+            out.write("    @Override\n");
+            out.write("    public void write(BinaryWriter out, " + typeName + " value) {\n");
+            out.write(writes.toString());
+            out.write("    }\n\n");
+            out.write("    @Override\n");
+            out.write("    public " + typeName + " read(BinaryReader in) {\n");
+            out.write("        " + typeName + " value = new " + typeName + "();\n");
+            out.write(reads.toString());
+            out.write("        return value;\n");
+            out.write("    }\n");
+            out.write("}\n");
+        }
+    }
+
+    /**
+     * @return the instance fields of the type, those of its superclasses first.
+     */
+    private List<VariableElement> fields(TypeElement type) {
+        List<VariableElement> fields = new ArrayList<>();
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() == TypeKind.DECLARED) {
+            fields.addAll(fields((TypeElement) ((DeclaredType) superclass).asElement()));
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * @return the {@code BinaryWriter} call writing the value and the {@code BinaryReader}
+     * call reading it back.
+     */
+    private String[] codec(VariableElement field, TypeMirror type, String value, Map<String, String> enumConstants)
+            throws UnsupportedFieldException {
+        switch (type.getKind()) {
+            case INT:
+                return new String[]{"writeInt(" + value + ")", "readInt()"};
+            case LONG:
+                return new String[]{"writeLong(" + value + ")", "readLong()"};
+            case FLOAT:
+                return new String[]{"writeFloat(" + value + ")", "readFloat()"};
+            case BOOLEAN:
+                return new String[]{"writeBoolean(" + value + ")", "readBoolean()"};
+            case DECLARED:
+                break;
+            default:
+                throw unsupported(field, type);
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        String name = element.getQualifiedName().toString();
+        if (name.equals("java.lang.Long")) {
+            return new String[]{"writeNullableLong(" + value + ")", "readNullableLong()"};
+        }
+        if (name.equals("java.lang.String")) {
+            return new String[]{"writeString(" + value + ")", "readString()"};
+        }
+        if (name.equals("java.time.LocalDateTime")) {
+            return new String[]{"writeDateTime(" + value + ")", "readDateTime()"};
+        }
+        if (element.getKind() == ElementKind.ENUM) {
+            String constants = enumConstants.computeIfAbsent(name,
+                    ignored -> element.getSimpleName().toString().replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase() + "_VALUES");
+            return new String[]{"writeEnum(" + value + ")", "readEnum(" + constants + ")"};
+        }
+        if (element.getAnnotation(WireType.class) != null) {
+            String codec = name + SUFFIX + ".INSTANCE";
+            return new String[]{"writeObject(" + value + ", " + codec + ")", "readObject(" + codec + ")"};
+        }
+        if (name.equals("java.util.List") && ((DeclaredType) type).getTypeArguments().size() == 1) {
+            String codec = elementCodec(field, ((DeclaredType) type).getTypeArguments().get(0));
+            return new String[]{"writeList(" + value + ", " + codec + ")", "readList(" + codec + ")"};
+        }
+        throw unsupported(field, type);
+    }
+
+    private String elementCodec(VariableElement field, TypeMirror type) throws UnsupportedFieldException {
+        if (type.getKind() != TypeKind.DECLARED) {
+            throw unsupported(field, type);
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        String name = element.getQualifiedName().toString();
+        if (element.getAnnotation(WireType.class) != null) {
+            return name + SUFFIX + ".INSTANCE";
+        }
+        switch (name) {
+            case "java.lang.Long":
+                return COMMON + ".DomainCodecs.LONG";
+            case "java.lang.String":
+                return COMMON + ".DomainCodecs.STRING";
+            case "java.time.LocalDateTime":
+                return COMMON + ".DomainCodecs.DATE_TIME";
+            default:
+                throw unsupported(field, type);
+        }
+    }
+
+    private static String getterName(String field, TypeMirror type) {
+        return (type.getKind() == TypeKind.BOOLEAN ? "is" : "get") + capitalize(field);
+    }
+
+    /**
+     * @return the name of the public method of the type with that name and number of
+     * parameters.
+     */
+    private String accessor(TypeElement type, VariableElement field, String name, int parameters)
+            throws UnsupportedFieldException {
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == parameters
+                    && method.getModifiers().contains(Modifier.PUBLIC)) {
+                return name;
+            }
+        }
+        throw new UnsupportedFieldException(field, "Field " + field.getSimpleName() + " of " + type.getSimpleName()
+                + " needs a public " + name + " method.");
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static UnsupportedFieldException unsupported(VariableElement field, TypeMirror type) {
+        return new UnsupportedFieldException(field, "Field " + field.getSimpleName() + " has type " + type
+                + ", which @WireType codecs cannot carry.");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static class UnsupportedFieldException extends Exception {
+        private final Element element;
+
+        UnsupportedFieldException(Element element, String message) {
+            super(message);
+            this.element = element;
+        }
+    }
+}
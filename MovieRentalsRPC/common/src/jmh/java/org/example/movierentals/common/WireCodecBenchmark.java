@@ -0,0 +1,173 @@
+package org.example.movierentals.common;
+
+import org.example.movierentals.common.domain.AgeRestrictions;
+import org.example.movierentals.common.domain.Client;
+import org.example.movierentals.common.domain.ClientRentReportDTO;
+import org.example.movierentals.common.domain.Movie;
+import org.example.movierentals.common.domain.MovieGenres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The response path of two calls, {@code getAllMovies} and {@code generateReportByClient},
+ * as the services answered before and as they answer now: rows built with a
+ * {@link StringBuilder}, sent as UTF-8 and taken apart with {@link String#split}, against
+ * the result written and read back by its {@link RpcMethod}. Run with
+ * {@code gradle :common:jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireCodecBenchmark {
+    private static final int MOVIES = 100;
+    private static final String OK = "200 OK";
+
+    private RpcMethod getAllMovies;
+    private RpcMethod generateReportByClient;
+    private List<Movie> movies;
+    private ClientRentReportDTO report;
+    private byte[] moviesText;
+    private byte[] moviesBinary;
+    private byte[] reportText;
+    private byte[] reportBinary;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        Map<Method, RpcMethod> movieMethods = RpcMethod.resolve(IMovieService.class);
+        getAllMovies = movieMethods.get(IMovieService.class.getMethod("getAllMovies"));
+        Map<Method, RpcMethod> rentalMethods = RpcMethod.resolve(IRentalService.class);
+        generateReportByClient = rentalMethods.get(IRentalService.class.getMethod("generateReportByClient", Long.class));
+
+        movies = new ArrayList<>();
+        List<LocalDateTime> dates = new ArrayList<>();
+        for (int i = 0; i < MOVIES; i++) {
+            Movie movie = new Movie("The Good the Bad and the Ugly " + i, 1966, MovieGenres.WESTERN, AgeRestrictions.R,
+                    2.99f, true);
+            movie.setId(12345L + i);
+            movies.add(movie);
+            dates.add(LocalDateTime.of(2024, 3, 1, 18, 30, 5, 123456789).plusDays(i));
+        }
+        Client client = new Client("Ana", "Popescu", "1990-05-17", "ana.popescu@example.org", true);
+        client.setId(678L);
+        report = new ClientRentReportDTO(client, movies.subList(0, 20), 59.8f, dates.subList(0, 20), 20);
+
+        moviesText = encodeMoviesText();
+        moviesBinary = encodeMoviesBinary();
+        reportText = encodeReportText();
+        reportBinary = encodeReportBinary();
+    }
+
+    @Benchmark
+    public byte[] encodeMoviesText() {
+        StringBuilder sb = new StringBuilder();
+        for (Movie movie : movies) {
+            appendMovie(sb, movie, ",").append(";");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeMoviesBinary() {
+        return getAllMovies.encodeResult(movies);
+    }
+
+    @Benchmark
+    public List<Movie> decodeMoviesText() {
+        List<Movie> decoded = new ArrayList<>();
+        for (String row : new String(moviesText, StandardCharsets.UTF_8).split(";")) {
+            decoded.add(parseMovie(row.split(",")));
+        }
+        return decoded;
+    }
+
+    @Benchmark
+    public Object decodeMoviesBinary() {
+        return getAllMovies.decodeResult(Message.withEncodedBody(OK, moviesBinary));
+    }
+
+    @Benchmark
+    public byte[] encodeReportText() {
+        StringBuilder sb = new StringBuilder();
+        Client client = report.getClient();
+        sb.append(client.getId()).append(",")
+                .append(client.getFirstName()).append(",")
+                .append(client.getLastName()).append(",")
+                .append(client.getDateOfBirth()).append(",")
+                .append(client.getEmail()).append(",")
+                .append(client.isSubscribe()).append(";");
+        for (Movie movie : report.getMoviesList()) {
+            appendMovie(sb, movie, ":").append(",");
+        }
+        sb.append(";").append(report.getTotalCharges()).append(";");
+        for (LocalDateTime date : report.getRentDates()) {
+            sb.append(date).append(",");
+        }
+        sb.append(";").append(report.getCounter());
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeReportBinary() {
+        return generateReportByClient.encodeResult(report);
+    }
+
+    @Benchmark
+    public ClientRentReportDTO decodeReportText() {
+        String[] parts = new String(reportText, StandardCharsets.UTF_8).split(";");
+        String[] clientFields = parts[0].split(",");
+        Client client = new Client(clientFields[1], clientFields[2], clientFields[3], clientFields[4],
+                Boolean.parseBoolean(clientFields[5]));
+        client.setId(Long.parseLong(clientFields[0]));
+        List<Movie> moviesList = new ArrayList<>();
+        for (String row : parts[1].split(",")) {
+            moviesList.add(parseMovie(row.split(":")));
+        }
+        List<LocalDateTime> rentDates = new ArrayList<>();
+        for (String date : parts[3].split(",")) {
+            rentDates.add(LocalDateTime.parse(date));
+        }
+        return new ClientRentReportDTO(client, moviesList, Float.parseFloat(parts[2]), rentDates,
+                Integer.parseInt(parts[4]));
+    }
+
+    @Benchmark
+    public Object decodeReportBinary() {
+        return generateReportByClient.decodeResult(Message.withEncodedBody(OK, reportBinary));
+    }
+
+    private static StringBuilder appendMovie(StringBuilder sb, Movie movie, String separator) {
+        return sb.append(movie.getId()).append(separator)
+                .append(movie.getTitle()).append(separator)
+                .append(movie.getYear()).append(separator)
+                .append(movie.getGenre()).append(separator)
+                .append(movie.getAgeRestrictions()).append(separator)
+                .append(movie.getRentalPrice()).append(separator)
+                .append(movie.isAvailable());
+    }
+
+    private static Movie parseMovie(String[] fields) {
+        Movie movie = new Movie(fields[1], Integer.parseInt(fields[2]), MovieGenres.valueOf(fields[3]),
+                AgeRestrictions.valueOf(fields[4]), Float.parseFloat(fields[5]), Boolean.parseBoolean(fields[6]));
+        movie.setId(Long.parseLong(fields[0]));
+        return movie;
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.movierentals.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads values written by {@link BinaryWriter} straight from a byte array, e.g. the body
+ * of a decoded {@link Message}; see there for the layout. Only strings, lists and the
+ * values themselves are allocated.
+ * <p>
+ * Bytes that end in the middle of a value, or hold a value no writer produces, raise an
+ * {@link IllegalArgumentException}.
+ */
+public class BinaryReader {
+    private final byte[] bytes;
+    private final int end;
+    private int position;
+
+    public BinaryReader(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    public boolean hasRemaining() {
+        return position < end;
+    }
+
+    public int readInt() {
+        long value = readLong();
+        if (value != (int) value) {
+            throw new IllegalArgumentException("Value " + value + " does not fit an int.");
+        }
+        return (int) value;
+    }
+
+    public long readLong() {
+        long zigzag = readUnsigned();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    public Long readNullableLong() {
+        long zigzag = readUnsigned();
+        if (zigzag == 0) {
+            return null;
+        }
+        zigzag--;
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    public float readFloat() {
+        require(4);
+        int bits = (bytes[position] & 0xFF) << 24
+                | (bytes[position + 1] & 0xFF) << 16
+                | (bytes[position + 2] & 0xFF) << 8
+                | (bytes[position + 3] & 0xFF);
+        position += 4;
+        return Float.intBitsToFloat(bits);
+    }
+
+    public boolean readBoolean() {
+        require(1);
+        return bytes[position++] != 0;
+    }
+
+    public String readString() {
+        int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * @param constants the values of the enum, kept by the caller so that reading one
+     *                  does not clone them.
+     */
+    public <E extends Enum<E>> E readEnum(E[] constants) {
+        long ordinal = readUnsigned();
+        if (ordinal == 0) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal > constants.length) {
+            throw new IllegalArgumentException("No enum constant with ordinal " + (ordinal - 1) + ".");
+        }
+        return constants[(int) ordinal - 1];
+    }
+
+    public LocalDateTime readDateTime() {
+        long nanos = readUnsigned();
+        if (nanos == 0) {
+            return null;
+        }
+        if (nanos < 0 || nanos > 1_000_000_000L) {
+            throw new IllegalArgumentException("Nanoseconds out of range: " + (nanos - 1) + ".");
+        }
+        return LocalDateTime.ofEpochSecond(readLong(), (int) nanos - 1, ZoneOffset.UTC);
+    }
+
+    public <T> T readObject(WireCodec<T> codec) {
+        return readBoolean() ? codec.read(this) : null;
+    }
+
+    public <T> List<T> readList(WireCodec<T> codec) {
+        int size = readLength();
+        if (size < 0) {
+            return null;
+        }
+        // Every element takes at least a byte, which bounds the list a bad size can allocate.
+        require(size);
+        List<T> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(codec.read(this));
+        }
+        return values;
+    }
+
+    /**
+     * @return the length of a string or list, or -1 for {@code null}.
+     */
+    private int readLength() {
+        long length = readUnsigned();
+        if (length < 0 || length - 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Length out of range: " + (length - 1) + ".");
+        }
+        return (int) (length - 1);
+    }
+
+    private long readUnsigned() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            byte b = bytes[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than 10 bytes.");
+    }
+
+    private void require(int count) {
+        if (end - position < count) {
+            throw new IllegalArgumentException("Binary body ends in the middle of a value.");
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.movierentals.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes values in the compact binary layout read by {@link BinaryReader}, into a byte
+ * array that grows as needed and can be {@link #reset()} and reused.
+ * <p>
+ * Integers are varints, 7 bits per byte with the high bit marking that another byte
+ * follows; signed values are zigzag encoded first so that small negative numbers stay
+ * short. Nullable values reserve 0 for {@code null}: a string or list is written as its
+ * length plus one, an enum as its ordinal plus one, an id as its zigzag value plus one.
+ * Floats are their four IEEE 754 bytes, big-endian, and booleans a single byte.
+ * A date-time is its nanoseconds plus one followed by its epoch second, both taken as UTC.
+ */
+public class BinaryWriter {
+    private byte[] bytes;
+    private int size;
+
+    public BinaryWriter() {
+        this(64);
+    }
+
+    public BinaryWriter(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public BinaryWriter writeInt(int value) {
+        return writeLong(value);
+    }
+
+    public BinaryWriter writeLong(long value) {
+        writeUnsigned((value << 1) ^ (value >> 63));
+        return this;
+    }
+
+    /**
+     * Writes an id that may be {@code null}; {@link Long#MIN_VALUE} cannot be written.
+     */
+    public BinaryWriter writeNullableLong(Long value) {
+        if (value == null) {
+            writeUnsigned(0);
+        } else if (value == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Long.MIN_VALUE cannot be written as a nullable long.");
+        } else {
+            writeUnsigned(((value << 1) ^ (value >> 63)) + 1);
+        }
+        return this;
+    }
+
+    public BinaryWriter writeFloat(float value) {
+        int bits = Float.floatToIntBits(value);
+        ensure(4);
+        bytes[size++] = (byte) (bits >>> 24);
+        bytes[size++] = (byte) (bits >>> 16);
+        bytes[size++] = (byte) (bits >>> 8);
+        bytes[size++] = (byte) bits;
+        return this;
+    }
+
+    public BinaryWriter writeBoolean(boolean value) {
+        ensure(1);
+        bytes[size++] = (byte) (value ? 1 : 0);
+        return this;
+    }
+
+    /**
+     * Writes the string as UTF-8; ASCII strings are copied char by char without an
+     * intermediate byte array.
+     */
+    public BinaryWriter writeString(String value) {
+        if (value == null) {
+            writeUnsigned(0);
+            return this;
+        }
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                writeUnsigned(utf8.length + 1L);
+                ensure(utf8.length);
+                System.arraycopy(utf8, 0, bytes, size, utf8.length);
+                size += utf8.length;
+                return this;
+            }
+        }
+        writeUnsigned(length + 1L);
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            bytes[size++] = (byte) value.charAt(i);
+        }
+        return this;
+    }
+
+    public BinaryWriter writeEnum(Enum<?> value) {
+        writeUnsigned(value == null ? 0 : value.ordinal() + 1L);
+        return this;
+    }
+
+    public BinaryWriter writeDateTime(LocalDateTime value) {
+        if (value == null) {
+            writeUnsigned(0);
+            return this;
+        }
+        writeUnsigned(value.getNano() + 1L);
+        return writeLong(value.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    /**
+     * Writes a nested value that may be {@code null}, behind a presence byte.
+     */
+    public <T> BinaryWriter writeObject(T value, WireCodec<T> codec) {
+        writeBoolean(value != null);
+        if (value != null) {
+            codec.write(this, value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the list size and then every element with the given codec; the elements
+     * must not be {@code null}.
+     */
+    public <T> BinaryWriter writeList(List<T> values, WireCodec<T> codec) {
+        if (values == null) {
+            writeUnsigned(0);
+            return this;
+        }
+        writeUnsigned(values.size() + 1L);
+        for (T value : values) {
+            codec.write(this, value);
+        }
+        return this;
+    }
+
+    private void writeUnsigned(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    private void ensure(int more) {
+        if (size + more > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + more));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Forgets what was written, keeping the buffer for the next value.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.movierentals.common;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of direct {@link ByteBuffer}s in power-of-two size classes, from
+ * {@link #MIN_SIZE} up to {@link #MAX_POOLED_SIZE}.
+ * <p>
+ * Direct buffers are expensive to allocate and are only freed by the garbage collector,
+ * so connections take their socket buffers from here and give them back when done.
+ * Larger buffers are allocated on demand and simply dropped on release.
+ */
+public class BufferPool {
+    public static final int MIN_SIZE = 4 * 1024;
+    public static final int MAX_POOLED_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_BUFFERS_PER_CLASS = 64;
+
+    private static final BufferPool SHARED = new BufferPool();
+
+    private final Queue<ByteBuffer>[] classes;
+    private final AtomicInteger[] sizes;
+
+    @SuppressWarnings("unchecked")
+    public BufferPool() {
+        int count = sizeClass(MAX_POOLED_SIZE) + 1;
+        classes = (Queue<ByteBuffer>[]) new Queue<?>[count];
+        sizes = new AtomicInteger[count];
+        for (int i = 0; i < count; i++) {
+            classes[i] = new ConcurrentLinkedQueue<>();
+            sizes[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * The pool shared by all connections of this process.
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return a cleared direct buffer with at least the given capacity.
+     */
+    public ByteBuffer acquire(int capacity) {
+        if (capacity > MAX_POOLED_SIZE) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        int sizeClass = sizeClass(capacity);
+        ByteBuffer buffer = classes[sizeClass].poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(MIN_SIZE << sizeClass);
+        }
+        sizes[sizeClass].decrementAndGet();
+        return buffer.clear();
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #acquire(int)}. The caller must not touch it afterwards.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.capacity() > MAX_POOLED_SIZE
+                || Integer.bitCount(buffer.capacity()) != 1 || buffer.capacity() < MIN_SIZE) {
+            return;
+        }
+        int sizeClass = sizeClass(buffer.capacity());
+        if (sizes[sizeClass].incrementAndGet() > MAX_BUFFERS_PER_CLASS) {
+            sizes[sizeClass].decrementAndGet();
+            return;
+        }
+        classes[sizeClass].offer(buffer);
+    }
+
+    private static int sizeClass(int capacity) {
+        if (capacity <= MIN_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - Integer.numberOfTrailingZeros(MIN_SIZE);
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.movierentals.common;
+
+import java.util.Arrays;
+
+/**
+ * Payload compression codecs a connection can agree on.
+ * <p>
+ * The client offers a comma separated list of codec names in a {@link Message#HELLO}
+ * request, in order of preference; the server answers with the first one it supports.
+ */
+public enum Compression {
+    NONE((byte) 0, "none"),
+    DEFLATE((byte) 1, "deflate"),
+    LZ4((byte) 2, "lz4");
+
+    private final byte id;
+    private final String wireName;
+
+    Compression(byte id, String wireName) {
+        this.id = id;
+        this.wireName = wireName;
+    }
+
+    /**
+     * Identifies the codec inside a compressed payload.
+     */
+    public byte getId() {
+        return id;
+    }
+
+    public String getWireName() {
+        return wireName;
+    }
+
+    public static Compression fromId(byte id) {
+        for (Compression compression : values()) {
+            if (compression.id == id) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException("Unknown compression id " + id + ".");
+    }
+
+    public static Compression fromWireName(String wireName) {
+        for (Compression compression : values()) {
+            if (compression.wireName.equalsIgnoreCase(wireName.trim())) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException("Unknown compression " + wireName + ".");
+    }
+
+    /**
+     * Picks the first codec of the offer that this side supports.
+     *
+     * @param offer comma separated codec names, most preferred first.
+     * @return the chosen codec, {@link #NONE} if nothing in the offer is supported.
+     */
+    public static Compression negotiate(String offer) {
+        if (offer == null) {
+            return NONE;
+        }
+        return Arrays.stream(offer.split(","))
+                .map(String::trim)
+                .flatMap(name -> Arrays.stream(values()).filter(c -> c.wireName.equalsIgnoreCase(name)))
+                .findFirst()
+                .orElse(NONE);
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.movierentals.common;
+
+import org.example.movierentals.common.domain.AgeRestrictions;
+import org.example.movierentals.common.domain.Client;
+import org.example.movierentals.common.domain.ClientRentReportDTO;
+import org.example.movierentals.common.domain.ClientRentReportDTOWireCodec;
+import org.example.movierentals.common.domain.ClientRentalsDTO;
+import org.example.movierentals.common.domain.ClientRentalsDTOWireCodec;
+import org.example.movierentals.common.domain.ClientWireCodec;
+import org.example.movierentals.common.domain.Movie;
+import org.example.movierentals.common.domain.MovieChange;
+import org.example.movierentals.common.domain.MovieChangeWireCodec;
+import org.example.movierentals.common.domain.MovieGenres;
+import org.example.movierentals.common.domain.MovieRentReportDTO;
+import org.example.movierentals.common.domain.MovieRentReportDTOWireCodec;
+import org.example.movierentals.common.domain.MovieRentalsDTO;
+import org.example.movierentals.common.domain.MovieRentalsDTOWireCodec;
+import org.example.movierentals.common.domain.MovieWireCodec;
+import org.example.movierentals.common.domain.Rental;
+import org.example.movierentals.common.domain.RentalWireCodec;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary codecs of the domain classes and report DTOs, used for both the arguments and the
+ * results of every call. The codecs of the classes marked {@code @WireType} are generated
+ * at compile time; they write the fields in declaration order, ids first, so a record
+ * costs a few bytes more than its strings and a title may hold any character, commas
+ * included.
+ * <p>
+ * Enums travel as ordinals: a constant may be added at the end of {@link MovieGenres} or
+ * {@link AgeRestrictions}, but reordering them changes the meaning of data already sent.
+ */
+public final class DomainCodecs {
+    public static final WireCodec<Long> LONG = new WireCodec<>() {
+        @Override
+        public void write(BinaryWriter out, Long value) {
+            out.writeLong(value);
+        }
+
+        @Override
+        public Long read(BinaryReader in) {
+            return in.readLong();
+        }
+    };
+
+    public static final WireCodec<String> STRING = new WireCodec<>() {
+        @Override
+        public void write(BinaryWriter out, String value) {
+            out.writeString(value);
+        }
+
+        @Override
+        public String read(BinaryReader in) {
+            return in.readString();
+        }
+    };
+
+    public static final WireCodec<LocalDateTime> DATE_TIME = new WireCodec<>() {
+        @Override
+        public void write(BinaryWriter out, LocalDateTime value) {
+            out.writeDateTime(value);
+        }
+
+        @Override
+        public LocalDateTime read(BinaryReader in) {
+            return in.readDateTime();
+        }
+    };
+
+    public static final WireCodec<Movie> MOVIE = MovieWireCodec.INSTANCE;
+    public static final WireCodec<Client> CLIENT = ClientWireCodec.INSTANCE;
+    public static final WireCodec<Rental> RENTAL = RentalWireCodec.INSTANCE;
+    public static final WireCodec<MovieRentReportDTO> MOVIE_RENT_REPORT = MovieRentReportDTOWireCodec.INSTANCE;
+    public static final WireCodec<ClientRentReportDTO> CLIENT_RENT_REPORT = ClientRentReportDTOWireCodec.INSTANCE;
+    public static final WireCodec<MovieRentalsDTO> MOVIE_RENTALS = MovieRentalsDTOWireCodec.INSTANCE;
+    public static final WireCodec<ClientRentalsDTO> CLIENT_RENTALS = ClientRentalsDTOWireCodec.INSTANCE;
+    public static final WireCodec<MovieChange> MOVIE_CHANGE = MovieChangeWireCodec.INSTANCE;
+
+    private static final Map<Class<?>, WireCodec<?>> BY_TYPE = Map.ofEntries(
+            Map.entry(Long.class, LONG),
+            Map.entry(String.class, STRING),
+            Map.entry(LocalDateTime.class, DATE_TIME),
+            Map.entry(Movie.class, MOVIE),
+            Map.entry(Client.class, CLIENT),
+            Map.entry(Rental.class, RENTAL),
+            Map.entry(MovieRentReportDTO.class, MOVIE_RENT_REPORT),
+            Map.entry(ClientRentReportDTO.class, CLIENT_RENT_REPORT),
+            Map.entry(MovieRentalsDTO.class, MOVIE_RENTALS),
+            Map.entry(ClientRentalsDTO.class, CLIENT_RENTALS),
+            Map.entry(MovieChange.class, MOVIE_CHANGE));
+
+    private DomainCodecs() {
+    }
+
+    /**
+     * @return a codec of lists whose elements are written with the given codec.
+     */
+    public static <T> WireCodec<List<T>> listOf(WireCodec<T> elements) {
+        return new WireCodec<>() {
+            @Override
+            public void write(BinaryWriter out, List<T> value) {
+                out.writeList(value, elements);
+            }
+
+            @Override
+            public List<T> read(BinaryReader in) {
+                return in.readList(elements);
+            }
+        };
+    }
+
+    /**
+     * @return the codec of the given type, or {@code null} if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> WireCodec<T> forType(Class<T> type) {
+        return (WireCodec<T>) BY_TYPE.get(type);
+    }
+}
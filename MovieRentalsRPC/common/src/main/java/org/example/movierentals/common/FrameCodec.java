@@ -0,0 +1,535 @@
+package org.example.movierentals.common;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Length-prefixed binary framing for {@link Message}.
+ * <p>
+ * Every frame starts with a fixed big-endian header:
+ * <pre>
+ *   magic (2) | version (1) | opcode (2) | flags (1) | correlation id (8) | payload length (4)
+ * </pre>
+ * followed by the payload: the header string length (2, unsigned), the header string and
+ * the body, both UTF-8. Since the payload length is known up front, any byte may appear
+ * in a body and a reader never consumes bytes of the next frame.
+ * <p>
+ * A batch ({@link #FLAG_BATCH}) carries an item count (4) after the header string instead
+ * of a body, then for every item its opcode (2), flags (1), payload length (4) and a
+ * payload laid out like the one above.
+ * <p>
+ * A request with a deadline ({@link #FLAG_DEADLINE}) starts its payload with the
+ * milliseconds it has left (4), ahead of the header string length.
+ * <p>
+ * A compressed frame ({@link #FLAG_COMPRESSED}) replaces the payload with the codec id (1),
+ * the uncompressed payload length (4) and the compressed bytes. Only payloads of at least
+ * the compression threshold are compressed, and only when that makes them smaller.
+ * <p>
+ * A codec reads and writes through direct buffers taken from a {@link BufferPool}, so
+ * socket I/O needs no intermediate heap copies. Messages are encoded straight into the
+ * write buffer, and a received frame is copied out of the read buffer once, into the byte
+ * array its decoded {@link Message} views lazily.
+ * <p>
+ * A codec keeps its buffers, as well as its compressor instances, between calls and is
+ * meant to be owned by a single connection: one thread reading and, at any time, one
+ * thread writing. {@link #close()} gives the buffers back to the pool.
+ */
+public class FrameCodec implements AutoCloseable {
+    public static final short MAGIC = 0x4D52;
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 18;
+    public static final int MAX_PAYLOAD_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * The message has no body (as opposed to an empty one).
+     */
+    public static final byte FLAG_NO_BODY = 0x01;
+    /**
+     * The payload holds a list of sub-messages instead of a body.
+     */
+    public static final byte FLAG_BATCH = 0x02;
+    /**
+     * The payload is compressed.
+     */
+    public static final byte FLAG_COMPRESSED = 0x04;
+    /**
+     * More frames with the same correlation id follow; set on all chunks of a streamed
+     * response except the last.
+     */
+    public static final byte FLAG_MORE = 0x08;
+    /**
+     * The payload starts with the remaining time budget of the request.
+     */
+    public static final byte FLAG_DEADLINE = 0x10;
+
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 4 * 1024;
+    private static final int MAX_RETAINED_SIZE = 256 * 1024;
+    private static final int MAX_HEADER_STRING_LENGTH = 0xFFFF;
+    private static final int ITEM_HEADER_SIZE = 7;
+    private static final int COMPRESSION_HEADER_SIZE = 5;
+    private static final LZ4Compressor LZ4_COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4SafeDecompressor LZ4_DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+
+    private final BufferPool pool;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer writeBuffer;
+    private ByteBuffer compressedBuffer;
+    private ByteBuffer readBuffer;
+    private int readStart;
+
+    private Compression compression = Compression.NONE;
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+    private Deflater deflater;
+    private Inflater inflater;
+
+    public FrameCodec() {
+        this(BufferPool.shared());
+    }
+
+    public FrameCodec(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the codec used for frames written from now on. Frames are always read
+     * according to the codec id they carry.
+     */
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Payloads smaller than this many bytes are sent uncompressed.
+     */
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * Encodes the message into this codec's reusable direct buffer.
+     *
+     * @return the buffer, flipped and ready to be written; only valid until the next call.
+     */
+    public ByteBuffer encode(Message message) {
+        writeBuffer = resize(writeBuffer, HEADER_SIZE + estimatePayload(message), WRITE_BUFFER_SIZE);
+
+        ByteBuffer buffer = writeBuffer;
+        buffer.clear();
+        buffer.putShort(MAGIC)
+                .put(VERSION)
+                .putShort((short) message.getOpcode())
+                .put((byte) 0)
+                .putLong(message.getCorrelationId())
+                .putInt(0);
+
+        byte flags = 0;
+        if (message.hasDeadline()) {
+            buffer.putInt((int) Math.min(Integer.MAX_VALUE, message.remainingMillis()));
+            flags |= FLAG_DEADLINE;
+        }
+        flags |= putPayload(message, buffer);
+        if (message.isMore()) {
+            flags |= FLAG_MORE;
+        }
+        buffer.put(5, flags);
+        int payloadLength = buffer.position() - HEADER_SIZE;
+        buffer.putInt(HEADER_SIZE - 4, payloadLength);
+        buffer.flip();
+
+        if (compression != Compression.NONE && payloadLength >= compressionThreshold) {
+            return compress(buffer, payloadLength);
+        }
+        return buffer;
+    }
+
+    /**
+     * Encodes the message and writes the whole frame to a blocking channel.
+     */
+    public void write(Message message, WritableByteChannel channel) throws IOException {
+        ByteBuffer frame = encode(message);
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    /**
+     * Compresses the payload of the encoded frame into the second reusable buffer.
+     *
+     * @return the compressed frame, or the original one if compression did not pay off.
+     */
+    private ByteBuffer compress(ByteBuffer frame, int payloadLength) {
+        int maxCompressedLength = compression == Compression.LZ4
+                ? LZ4_COMPRESSOR.maxCompressedLength(payloadLength)
+                : payloadLength + (payloadLength >> 12) + (payloadLength >> 14) + 64;
+        int targetOffset = HEADER_SIZE + COMPRESSION_HEADER_SIZE;
+        compressedBuffer = resize(compressedBuffer, targetOffset + maxCompressedLength, WRITE_BUFFER_SIZE);
+
+        int compressedLength;
+        if (compression == Compression.LZ4) {
+            compressedLength = LZ4_COMPRESSOR.compress(frame, HEADER_SIZE, payloadLength,
+                    compressedBuffer, targetOffset, maxCompressedLength);
+        } else {
+            if (deflater == null) {
+                deflater = new Deflater(Deflater.BEST_SPEED);
+            }
+            deflater.reset();
+            deflater.setInput(frame.slice(HEADER_SIZE, payloadLength));
+            deflater.finish();
+            compressedLength = deflater.deflate(compressedBuffer.clear().position(targetOffset)
+                    .limit(targetOffset + maxCompressedLength));
+            if (!deflater.finished()) {
+                return frame;
+            }
+        }
+        if (COMPRESSION_HEADER_SIZE + compressedLength >= payloadLength) {
+            return frame;
+        }
+
+        compressedBuffer.clear();
+        compressedBuffer.put(0, frame, 0, HEADER_SIZE);
+        compressedBuffer.put(5, (byte) (frame.get(5) | FLAG_COMPRESSED));
+        compressedBuffer.putInt(HEADER_SIZE - 4, COMPRESSION_HEADER_SIZE + compressedLength);
+        compressedBuffer.position(HEADER_SIZE);
+        compressedBuffer.put(compression.getId()).putInt(payloadLength);
+        compressedBuffer.position(targetOffset + compressedLength);
+        compressedBuffer.flip();
+        return compressedBuffer;
+    }
+
+    /**
+     * Inflates a compressed payload into a new array of exactly the uncompressed size.
+     */
+    private byte[] decompress(ByteBuffer buffer, int offset, int payloadLength) throws ProtocolException {
+        if (payloadLength < COMPRESSION_HEADER_SIZE) {
+            throw new ProtocolException("Compressed payload is too short.");
+        }
+        Compression codec;
+        try {
+            codec = Compression.fromId(buffer.get(offset));
+        } catch (IllegalArgumentException e) {
+            throw new ProtocolException(e.getMessage());
+        }
+        int length = buffer.getInt(offset + 1);
+        if (length < 0 || length > MAX_PAYLOAD_LENGTH) {
+            throw new ProtocolException("Bad uncompressed payload length " + length + ".");
+        }
+        byte[] payload = new byte[length];
+
+        int dataOffset = offset + COMPRESSION_HEADER_SIZE;
+        int dataLength = payloadLength - COMPRESSION_HEADER_SIZE;
+        int inflated;
+        try {
+            if (codec == Compression.LZ4) {
+                inflated = LZ4_DECOMPRESSOR.decompress(buffer, dataOffset, dataLength,
+                        ByteBuffer.wrap(payload), 0, length);
+            } else if (codec == Compression.DEFLATE) {
+                if (inflater == null) {
+                    inflater = new Inflater();
+                }
+                inflater.reset();
+                inflater.setInput(buffer.slice(dataOffset, dataLength));
+                inflated = inflater.inflate(payload, 0, length);
+            } else {
+                throw new ProtocolException("Compressed frame without a codec.");
+            }
+        } catch (LZ4Exception | DataFormatException e) {
+            throw new ProtocolException("Corrupt compressed payload: " + e.getMessage());
+        }
+        if (inflated != length) {
+            throw new ProtocolException("Compressed payload inflated to " + inflated + " bytes, expected " + length + ".");
+        }
+        return payload;
+    }
+
+    /**
+     * Writes the header string followed by either the body or, for a batch, the items.
+     *
+     * @return the flags describing what was written.
+     */
+    private byte putPayload(Message message, ByteBuffer buffer) {
+        int headerStart = buffer.position() + 2;
+        buffer.position(headerStart);
+        putString(message.getHeader() == null ? "" : message.getHeader(), buffer);
+        int headerLength = buffer.position() - headerStart;
+        if (headerLength > MAX_HEADER_STRING_LENGTH) {
+            throw new IllegalArgumentException("Message header is too long: " + headerLength + " bytes.");
+        }
+        buffer.putShort(headerStart - 2, (short) headerLength);
+
+        if (message.getParts() != null) {
+            buffer.putInt(message.getParts().size());
+            for (Message part : message.getParts()) {
+                int itemStart = buffer.position();
+                buffer.putShort((short) part.getOpcode())
+                        .put((byte) 0)
+                        .putInt(0);
+                byte itemFlags = putPayload(part, buffer);
+                buffer.put(itemStart + 2, itemFlags);
+                buffer.putInt(itemStart + 3, buffer.position() - itemStart - ITEM_HEADER_SIZE);
+            }
+            return FLAG_BATCH;
+        }
+        if (message.encodedBodyLength() >= 0) {
+            message.putEncodedBody(buffer);
+            return 0;
+        }
+        if (message.getBody() == null) {
+            return FLAG_NO_BODY;
+        }
+        putString(message.getBody(), buffer);
+        return 0;
+    }
+
+    private int estimatePayload(Message message) {
+        int encodedBody = message.encodedBodyLength();
+        int chars = (message.getHeader() == null ? 0 : message.getHeader().length())
+                + (encodedBody >= 0 || message.getBody() == null ? 0 : message.getBody().length());
+        int size = 4 + 2 + (int) Math.ceil(encoder.maxBytesPerChar() * chars) + Math.max(0, encodedBody);
+        if (message.getParts() != null) {
+            size += 4;
+            for (Message part : message.getParts()) {
+                size += ITEM_HEADER_SIZE + estimatePayload(part);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Reads whatever the channel has available into the read buffer, growing it when the
+     * frame being received does not fit.
+     *
+     * @return the number of bytes read, or -1 at the end of the stream.
+     * @throws ProtocolException if the bytes received are not a valid frame.
+     */
+    public int readFrom(ReadableByteChannel channel) throws IOException {
+        if (readBuffer == null) {
+            readBuffer = pool.acquire(READ_BUFFER_SIZE);
+        }
+        if (readStart > 0) {
+            readBuffer.flip().position(readStart);
+            readBuffer.compact();
+            readStart = 0;
+        }
+        int needed = readBuffer.position() < HEADER_SIZE
+                ? HEADER_SIZE
+                : HEADER_SIZE + checkHeader(readBuffer, 0);
+        if (needed > readBuffer.capacity()) {
+            ByteBuffer larger = pool.acquire(needed);
+            larger.put(readBuffer.flip());
+            pool.release(readBuffer);
+            readBuffer = larger;
+        }
+        return channel.read(readBuffer);
+    }
+
+    /**
+     * Decodes the next frame already received by {@link #readFrom(ReadableByteChannel)}.
+     *
+     * @return the message, or {@code null} if no complete frame is buffered.
+     * @throws ProtocolException if the bytes are not a valid frame.
+     */
+    public Message nextFrame() throws ProtocolException {
+        if (readBuffer == null || readBuffer.position() - readStart < HEADER_SIZE) {
+            return null;
+        }
+        int frameLength = HEADER_SIZE + checkHeader(readBuffer, readStart);
+        if (readBuffer.position() - readStart < frameLength) {
+            return null;
+        }
+        Message message = decode(readBuffer, readStart);
+        readStart += frameLength;
+        if (readStart == readBuffer.position()) {
+            readStart = 0;
+            readBuffer.clear();
+            if (readBuffer.capacity() > MAX_RETAINED_SIZE) {
+                pool.release(readBuffer);
+                readBuffer = null;
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Reads exactly one frame from a blocking channel. Bytes of the frames after it stay
+     * buffered for the next call.
+     *
+     * @throws EOFException if the stream ends before a frame starts or in the middle of one.
+     * @throws ProtocolException if the bytes are not a valid frame.
+     */
+    public Message read(ReadableByteChannel channel) throws IOException {
+        Message message;
+        while ((message = nextFrame()) == null) {
+            if (readFrom(channel) == -1) {
+                throw new EOFException("Connection closed.");
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Decodes the frame starting at the given index. The payload is copied once, into the
+     * array the message's header and body are decoded from on demand.
+     */
+    private Message decode(ByteBuffer buffer, int start) throws ProtocolException {
+        long receivedAt = System.nanoTime();
+        int payloadLength = checkHeader(buffer, start);
+        int opcode = buffer.getShort(start + 3) & 0xFFFF;
+        byte flags = buffer.get(start + 5);
+        byte[] payload;
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            payload = decompress(buffer, start + HEADER_SIZE, payloadLength);
+        } else {
+            payload = new byte[payloadLength];
+            buffer.get(start + HEADER_SIZE, payload);
+        }
+        Message message;
+        if ((flags & FLAG_DEADLINE) != 0) {
+            if (payload.length < 4) {
+                throw new ProtocolException("Frame payload is too short for a deadline.");
+            }
+            long budget = ByteBuffer.wrap(payload).getInt() & 0xFFFFFFFFL;
+            message = decodePayload(payload, 4, payload.length - 4, flags);
+            message.setDeadline(receivedAt + TimeUnit.MILLISECONDS.toNanos(budget));
+        } else {
+            message = decodePayload(payload, 0, payload.length, flags);
+        }
+        message.setOpcode(opcode);
+        message.setCorrelationId(buffer.getLong(start + 6));
+        message.setMore((flags & FLAG_MORE) != 0);
+        return message;
+    }
+
+    private static Message decodePayload(byte[] payload, int offset, int payloadLength, byte flags)
+            throws ProtocolException {
+        if (payloadLength < 2) {
+            throw new ProtocolException("Frame payload is too short.");
+        }
+        int headerLength = readUnsignedShort(payload, offset);
+        if (headerLength > payloadLength - 2) {
+            throw new ProtocolException("Frame header string exceeds the payload.");
+        }
+        int position = offset + 2 + headerLength;
+        int end = offset + payloadLength;
+
+        if ((flags & FLAG_BATCH) != 0) {
+            Message message = Message.view(payload, offset + 2, headerLength, 0, -1);
+            ByteBuffer items = ByteBuffer.wrap(payload, position, end - position);
+            int count = items.getInt();
+            if (count < 0 || count > (end - position) / ITEM_HEADER_SIZE) {
+                throw new ProtocolException("Bad batch item count " + count + ".");
+            }
+            List<Message> parts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int itemOpcode = items.getShort() & 0xFFFF;
+                byte itemFlags = items.get();
+                int itemLength = items.getInt();
+                if (itemLength < 0 || itemLength > items.remaining()) {
+                    throw new ProtocolException("Batch item exceeds the payload.");
+                }
+                Message part = decodePayload(payload, items.position(), itemLength, itemFlags);
+                part.setOpcode(itemOpcode);
+                part.setCorrelationId(i);
+                parts.add(part);
+                items.position(items.position() + itemLength);
+            }
+            message.setParts(parts);
+            return message;
+        }
+        if ((flags & FLAG_NO_BODY) != 0) {
+            return Message.view(payload, offset + 2, headerLength, 0, -1);
+        }
+        return Message.view(payload, offset + 2, headerLength, position, end - position);
+    }
+
+    private static int readUnsignedShort(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    /**
+     * Validates magic and version of the header starting at the given index.
+     *
+     * @return the payload length.
+     */
+    private static int checkHeader(ByteBuffer buffer, int start) throws ProtocolException {
+        if (buffer.getShort(start) != MAGIC) {
+            throw new ProtocolException("Bad frame magic.");
+        }
+        if (buffer.get(start + 2) != VERSION) {
+            throw new ProtocolException("Unsupported frame version " + buffer.get(start + 2) + ".");
+        }
+        int payloadLength = buffer.getInt(start + HEADER_SIZE - 4);
+        if (payloadLength < 0 || payloadLength > MAX_PAYLOAD_LENGTH) {
+            throw new ProtocolException("Bad frame payload length " + payloadLength + ".");
+        }
+        return payloadLength;
+    }
+
+    private void putString(String value, ByteBuffer buffer) {
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(value), buffer, true);
+        encoder.flush(buffer);
+    }
+
+    /**
+     * Makes sure a reusable buffer holds at least {@code capacity} bytes, and hands an
+     * oversized one back to the pool once the messages are small again.
+     */
+    private ByteBuffer resize(ByteBuffer buffer, int capacity, int usualCapacity) {
+        if (buffer != null && buffer.capacity() >= capacity
+                && (buffer.capacity() <= MAX_RETAINED_SIZE || capacity > usualCapacity)) {
+            return buffer;
+        }
+        pool.release(buffer);
+        return pool.acquire(Math.max(capacity, usualCapacity));
+    }
+
+    /**
+     * Returns the buffers to the pool. The codec must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        pool.release(writeBuffer);
+        pool.release(compressedBuffer);
+        pool.release(readBuffer);
+        writeBuffer = null;
+        compressedBuffer = null;
+        readBuffer = null;
+        readStart = 0;
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+}
@@ -2,25 +2,24 @@ package org.example.movierentals.common;
 
 
 import org.example.movierentals.common.domain.Client;
-import org.example.movierentals.common.domain.Movie;
 
-import java.util.concurrent.Future;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface IClientService {
 
-    Future<String> getAllClients();
-    Future<String> addClient(Client client);
+    CompletableFuture<List<Client>> getAllClients();
+    CompletableFuture<Client> addClient(Client client);
 
-    Future<String> getClientById(Long id);
+    CompletableFuture<Client> getClientById(Long id);
 
-    Future<String> updateClient(Client client);
+    CompletableFuture<Client> updateClient(Client client);
 
-    Future<String> deleteClientById(Long id);
+    CompletableFuture<Client> deleteClientById(Long id);
 
-    Future<String> filterClientsByKeyword(String keyword);
+    CompletableFuture<List<Client>> filterClientsByKeyword(String keyword);
 
 
 
 
 }
-
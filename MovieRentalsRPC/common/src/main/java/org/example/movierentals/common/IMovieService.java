@@ -1,21 +1,39 @@
 package org.example.movierentals.common;
 
 import org.example.movierentals.common.domain.Movie;
+import org.example.movierentals.common.domain.MovieChange;
 
-import java.util.concurrent.Future;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface IMovieService {
 
-    Future<String> getAllMovies();
+    CompletableFuture<List<Movie>> getAllMovies();
 
-    Future<String> addMovie(Movie movie);
+    /**
+     * Sends all movies to {@code chunks} a bounded number at a time.
+     *
+     * @return the number of movies sent.
+     */
+    CompletableFuture<Integer> streamAllMovies(Consumer<List<Movie>> chunks);
 
-    Future<String> getMovieById(Long id);
+    CompletableFuture<Movie> addMovie(Movie movie);
 
-    Future<String> updateMovie(Movie movie);
+    CompletableFuture<Movie> getMovieById(Long id);
 
-    Future<String> deleteMovieById(Long id);
+    CompletableFuture<Movie> updateMovie(Movie movie);
 
-    Future<String> filterMoviesByKeyword(String keyword);
+    CompletableFuture<Movie> deleteMovieById(Long id);
+
+    CompletableFuture<List<Movie>> filterMoviesByKeyword(String keyword);
+
+    /**
+     * Passes a {@link MovieChange} to {@code changes} whenever a movie is added, updated or
+     * deleted, or one of its rentals changes, until the subscription ends.
+     *
+     * @return a future that completes when the subscription ends; cancel it to unsubscribe.
+     */
+    CompletableFuture<Void> subscribeMovieChanges(Consumer<MovieChange> changes);
 
 }
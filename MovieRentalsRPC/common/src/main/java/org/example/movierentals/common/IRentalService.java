@@ -1,27 +1,40 @@
 package org.example.movierentals.common;
 
+import org.example.movierentals.common.domain.ClientRentReportDTO;
+import org.example.movierentals.common.domain.ClientRentalsDTO;
+import org.example.movierentals.common.domain.MovieRentReportDTO;
+import org.example.movierentals.common.domain.MovieRentalsDTO;
 import org.example.movierentals.common.domain.Rental;
 
-import java.util.concurrent.Future;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface IRentalService {
 
-    Future<String> getAllRentals();
+    CompletableFuture<List<Rental>> getAllRentals();
 
-    Future<String> getRentalById(Long id);
+    /**
+     * Sends all rentals to {@code chunks} a bounded number at a time.
+     *
+     * @return the number of rentals sent.
+     */
+    CompletableFuture<Integer> streamAllRentals(Consumer<List<Rental>> chunks);
 
-    Future<String> rentAMovie(Rental rental);
+    CompletableFuture<Rental> getRentalById(Long id);
 
-    Future<String> updateRentalTransaction(Rental rental);
+    CompletableFuture<Rental> rentAMovie(Rental rental);
 
-    Future<String> deleteMovieRental(Long rentalId);
+    CompletableFuture<Rental> updateRentalTransaction(Rental rental);
 
-    Future<String> moviesByRentNumber();
+    CompletableFuture<Rental> deleteMovieRental(Long rentalId);
 
-    Future<String> clientsByRentNumber();
+    CompletableFuture<List<MovieRentalsDTO>> moviesByRentNumber();
 
-    Future<String> generateReportByClient(Long id);
+    CompletableFuture<List<ClientRentalsDTO>> clientsByRentNumber();
 
-    Future<String> generateReportByMovie(Long id);
+    CompletableFuture<ClientRentReportDTO> generateReportByClient(Long id);
+
+    CompletableFuture<MovieRentReportDTO> generateReportByMovie(Long id);
 
 }
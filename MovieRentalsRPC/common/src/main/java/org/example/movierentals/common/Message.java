@@ -1,10 +1,47 @@
 package org.example.movierentals.common;
 
-import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * An RPC request or response. See {@link FrameCodec} for how it travels on the wire.
+ * <p>
+ * A decoded message keeps the UTF-8 bytes of its payload and turns the header and body
+ * into strings only when they are asked for.
+ * <p>
+ * A body may also be binary, written with a {@link BinaryWriter} and sent with
+ * {@link #withEncodedBody(String, byte[])}; the receiver reads it with
+ * {@link #getBodyReader()} instead of {@link #getBody()}.
+ */
 public class Message {
+    /**
+     * Header of a request whose parts are executed one after another in a single round trip.
+     */
+    public static final String BATCH = "batch";
+    /**
+     * Header of the first request on a connection; its body offers the payload
+     * compression codecs the client supports, see {@link Compression}.
+     */
+    public static final String HELLO = "hello";
+
+    private long correlationId;
+    private int opcode;
     private String header;
     private String body;
+    private List<Message> parts;
+    private boolean more;
+    private boolean hasDeadline;
+    private long deadline;
+
+    private byte[] payload;
+    private int headerOffset;
+    private int headerLength = -1;
+    private int bodyOffset;
+    private int bodyLength = -1;
 
     public Message() {
     }
@@ -18,37 +55,252 @@ public class Message {
         this.body = body;
     }
 
+    /**
+     * A request for the given operation. It is sent under the operation's opcode,
+     * with an empty header string.
+     */
+    public Message(Operation operation) {
+        this.opcode = operation.getOpcode();
+    }
+
+    public Message(Operation operation, String body) {
+        this.opcode = operation.getOpcode();
+        this.body = body;
+    }
+
+    /**
+     * A message whose body is already encoded, as UTF-8 text or in the binary layout of
+     * {@link BinaryWriter}. The codec copies the bytes as they are, so a body shared by
+     * many responses is encoded only once; the array must not change afterwards.
+     */
+    public static Message withEncodedBody(String header, byte[] body) {
+        Message message = new Message(header);
+        message.payload = body;
+        message.bodyOffset = 0;
+        message.bodyLength = body.length;
+        return message;
+    }
+
+    /**
+     * A message whose header and body are views over the given payload bytes.
+     *
+     * @param bodyLength -1 if the message has no body.
+     */
+    static Message view(byte[] payload, int headerOffset, int headerLength, int bodyOffset, int bodyLength) {
+        Message message = new Message();
+        message.payload = payload;
+        message.headerOffset = headerOffset;
+        message.headerLength = headerLength;
+        message.bodyOffset = bodyOffset;
+        message.bodyLength = bodyLength;
+        return message;
+    }
+
+    /**
+     * Id that pairs a response with its request on a multiplexed connection.
+     */
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(long correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    /**
+     * Numeric operation code, see {@link Operation}; 0 means the operation is named by the header.
+     */
+    public int getOpcode() {
+        return opcode;
+    }
+
+    public void setOpcode(int opcode) {
+        this.opcode = opcode;
+    }
+
     public String getHeader() {
+        if (header == null && headerLength >= 0) {
+            header = new String(payload, headerOffset, headerLength, StandardCharsets.UTF_8);
+        }
         return header;
     }
 
     public void setHeader(String header) {
         this.header = header;
+        this.headerLength = -1;
+    }
+
+    /**
+     * True if the header is the given ASCII name; compares the raw bytes of a decoded
+     * message without creating the header string.
+     */
+    public boolean hasHeader(String name) {
+        if (header != null || headerLength < 0) {
+            return name.equals(header);
+        }
+        if (headerLength != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < headerLength; i++) {
+            if (payload[headerOffset + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public String getBody() {
+        if (body == null && bodyLength >= 0) {
+            body = new String(payload, bodyOffset, bodyLength, StandardCharsets.UTF_8);
+        }
         return body;
     }
 
     public void setBody(String body) {
         this.body = body;
+        this.bodyLength = -1;
+    }
+
+    /**
+     * @return the body as it travels, UTF-8 text or binary, or {@code null} if there is
+     * none. The array may be shared with the message and must not be changed.
+     */
+    public byte[] getEncodedBody() {
+        if (bodyLength >= 0) {
+            return bodyOffset == 0 && bodyLength == payload.length
+                    ? payload : Arrays.copyOfRange(payload, bodyOffset, bodyOffset + bodyLength);
+        }
+        return body == null ? null : body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the length of the UTF-8 body bytes the message holds, as decoded or as
+     * given to {@link #withEncodedBody}, or -1 if its body was set as a string.
+     */
+    int encodedBodyLength() {
+        return bodyLength;
+    }
+
+    /**
+     * Copies the UTF-8 body bytes the message holds, see {@link #encodedBodyLength()}.
+     */
+    void putEncodedBody(ByteBuffer buffer) {
+        buffer.put(payload, bodyOffset, bodyLength);
+    }
+
+    /**
+     * @return a reader over a binary body, see {@link BinaryWriter}.
+     */
+    public BinaryReader getBodyReader() {
+        if (bodyLength >= 0) {
+            return new BinaryReader(payload, bodyOffset, bodyLength);
+        }
+        byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        return new BinaryReader(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Sub-messages of a batch request or response, {@code null} for ordinary messages.
+     * Within a batch the correlation id of each part is its index.
+     */
+    public List<Message> getParts() {
+        return parts;
+    }
+
+    public void setParts(List<Message> parts) {
+        this.parts = parts;
+    }
+
+    /**
+     * True on every frame of a streamed response except the last one, which ends the
+     * stream and carries the final status.
+     */
+    public boolean isMore() {
+        return more;
+    }
+
+    public void setMore(boolean more) {
+        this.more = more;
+    }
+
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * The {@link System#nanoTime()} by which the request must be answered. It travels on
+     * the wire as the remaining budget, so the clocks of client and server need not agree.
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+        this.hasDeadline = true;
+    }
+
+    /**
+     * Sets the deadline to the given time from now.
+     */
+    public void setTimeout(Duration timeout) {
+        setDeadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * @return the milliseconds left until the deadline, 0 once it has passed, or
+     * {@link Long#MAX_VALUE} if there is none.
+     */
+    public long remainingMillis() {
+        if (!hasDeadline) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return hasDeadline && deadline - System.nanoTime() <= 0;
     }
 
-    public void readFrom(InputStream is) throws IOException {
-        BufferedReader br = new BufferedReader(new InputStreamReader(is));
-        header = br.readLine();
-        body = br.readLine();
+    /**
+     * @return a message with the same operation, header, body, parts and deadline, that
+     * can be sent alongside this one; the connection gives it a correlation id of its own.
+     */
+    public Message copy() {
+        Message copy = new Message(getHeader());
+        if (bodyLength >= 0) {
+            copy.payload = payload;
+            copy.bodyOffset = bodyOffset;
+            copy.bodyLength = bodyLength;
+        } else {
+            copy.body = body;
+        }
+        copy.opcode = opcode;
+        copy.parts = parts;
+        copy.more = more;
+        copy.hasDeadline = hasDeadline;
+        copy.deadline = deadline;
+        return copy;
     }
 
-    public void writeTo(OutputStream os) throws IOException {
-        os.write((header + "\n" + body + "\n").getBytes());
+    /**
+     * @return a batch request carrying the given requests as its parts.
+     */
+    public static Message batch(List<Message> requests) {
+        Message batch = new Message(BATCH);
+        batch.setParts(requests);
+        return batch;
     }
 
     @Override
     public String toString() {
         return "Message{" +
-                "header='" + header + '\'' +
-                ", body='" + body + '\'' +
+                "correlationId=" + correlationId +
+                ", opcode=" + opcode +
+                ", header='" + getHeader() + '\'' +
+                ", body='" + getBody() + '\'' +
+                (parts == null ? "" : ", parts=" + parts) +
+                (more ? ", more=true" : "") +
                 '}';
     }
 }
@@ -0,0 +1,115 @@
+package org.example.movierentals.common;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The RPC operations and the numeric opcode each one travels under.
+ * <p>
+ * A request names its operation by the opcode in the frame header, so the server finds
+ * the handler with an array load instead of hashing a string. Opcodes are part of the
+ * protocol: never renumber one, only add new ones. Opcode 0 is reserved for requests
+ * that name their operation by the header string.
+ * <p>
+ * An idempotent operation can be sent again, or twice at once, without changing what
+ * the server stores, so clients may retry and hedge it. Streamed operations are never
+ * idempotent in this sense, since their chunks have already been handed out.
+ */
+public enum Operation {
+    GET_ALL_MOVIES(1, "getAllMovies", true),
+    STREAM_ALL_MOVIES(2, "streamAllMovies", false),
+    ADD_MOVIE(3, "addMovie", false),
+    GET_MOVIE_BY_ID(4, "getMovieById", true),
+    UPDATE_MOVIE(5, "updateMovie", false),
+    DELETE_MOVIE_BY_ID(6, "deleteMovieById", false),
+    FILTER_MOVIES_BY_KEYWORD(7, "filterMoviesByKeyword", true),
+    SUBSCRIBE_MOVIE_CHANGES(8, "subscribeMovieChanges", false),
+
+    GET_ALL_CLIENTS(16, "getAllClients", true),
+    ADD_CLIENT(17, "addClient", false),
+    GET_CLIENT_BY_ID(18, "getClientById", true),
+    UPDATE_CLIENT(19, "updateClient", false),
+    DELETE_CLIENT_BY_ID(20, "deleteClientById", false),
+    FILTER_CLIENTS_BY_KEYWORD(21, "filterClientsByKeyword", true),
+
+    GET_ALL_RENTALS(32, "getAllRentals", true),
+    STREAM_ALL_RENTALS(33, "streamAllRentals", false),
+    GET_RENTAL_BY_ID(34, "getRentalById", true),
+    RENT_A_MOVIE(35, "rentAMovie", false),
+    UPDATE_RENTAL_TRANSACTION(36, "updateRentalTransaction", false),
+    DELETE_MOVIE_RENTAL(37, "deleteMovieRental", false),
+    MOVIES_BY_RENT_NUMBER(38, "moviesByRentNumber", true),
+    CLIENTS_BY_RENT_NUMBER(39, "clientsByRentNumber", true),
+    GENERATE_REPORT_BY_CLIENT(40, "generateReportByClient", true),
+    GENERATE_REPORT_BY_MOVIE(41, "generateReportByMovie", true);
+
+    private static final Operation[] BY_OPCODE;
+    private static final Map<String, Operation> BY_METHOD_NAME;
+
+    static {
+        int maxOpcode = 0;
+        for (Operation operation : values()) {
+            maxOpcode = Math.max(maxOpcode, operation.opcode);
+        }
+        Operation[] byOpcode = new Operation[maxOpcode + 1];
+        Map<String, Operation> byMethodName = new HashMap<>();
+        for (Operation operation : values()) {
+            if (byOpcode[operation.opcode] != null) {
+                throw new IllegalStateException("Opcode " + operation.opcode + " is used twice.");
+            }
+            byOpcode[operation.opcode] = operation;
+            byMethodName.put(operation.methodName, operation);
+        }
+        BY_OPCODE = byOpcode;
+        BY_METHOD_NAME = Map.copyOf(byMethodName);
+    }
+
+    private final int opcode;
+    private final String methodName;
+    private final boolean idempotent;
+
+    Operation(int opcode, String methodName, boolean idempotent) {
+        this.opcode = opcode;
+        this.methodName = methodName;
+        this.idempotent = idempotent;
+    }
+
+    public int getOpcode() {
+        return opcode;
+    }
+
+    /**
+     * The name the operation is known by in a header-named request.
+     */
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * True for read-only operations, which may safely be sent more than once.
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * The highest opcode in use; dispatch tables are sized by it.
+     */
+    public static int maxOpcode() {
+        return BY_OPCODE.length - 1;
+    }
+
+    /**
+     * @return the operation with the given opcode, or {@code null} if there is none.
+     */
+    public static Operation fromOpcode(int opcode) {
+        return opcode > 0 && opcode < BY_OPCODE.length ? BY_OPCODE[opcode] : null;
+    }
+
+    /**
+     * @return the operation with the given method name, or {@code null} if there is none.
+     */
+    public static Operation fromMethodName(String methodName) {
+        return methodName == null ? null : BY_METHOD_NAME.get(methodName);
+    }
+}
@@ -0,0 +1,247 @@
+package org.example.movierentals.common;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A method of a service interface as it travels over RPC, resolved once by
+ * {@link #resolve(Class)} so that client stubs and server skeletons do no reflection
+ * per call.
+ * <p>
+ * A method is sent under the {@link Operation} of the same name. Its arguments make up a
+ * binary body: each one behind a presence byte, written with the codec of its type from
+ * {@link DomainCodecs}. A {@link Consumer} argument receives the chunks of a streamed
+ * response and is not sent. The result of a unary method, and every chunk or event of a
+ * streamed one, comes back the same way, written with the codec of its type; a
+ * {@code List} of a type with a codec has one too.
+ */
+public final class RpcMethod {
+    public enum Kind {
+        /**
+         * Returns {@code CompletableFuture<R>}, completed with the result.
+         */
+        UNARY,
+        /**
+         * Takes a {@code Consumer<C>} for the chunks and returns
+         * {@code CompletableFuture<Integer>}, completed with the number of rows sent.
+         */
+        STREAM,
+        /**
+         * Takes a {@code Consumer<C>} for the events and returns
+         * {@code CompletableFuture<Void>}, completed when the subscription ends.
+         */
+        SUBSCRIPTION
+    }
+
+    private final Method method;
+    private final Operation operation;
+    private final Kind kind;
+    private final WireCodec<Object>[] codecs;
+    private final WireCodec<Object> resultCodec;
+    private final int consumerIndex;
+    private final boolean hasBody;
+
+    private RpcMethod(Method method, Operation operation, Kind kind, WireCodec<Object>[] codecs,
+                      WireCodec<Object> resultCodec, int consumerIndex) {
+        this.method = method;
+        this.operation = operation;
+        this.kind = kind;
+        this.codecs = codecs;
+        this.resultCodec = resultCodec;
+        this.consumerIndex = consumerIndex;
+        this.hasBody = codecs.length > (consumerIndex >= 0 ? 1 : 0);
+    }
+
+    /**
+     * @return every method of the interface, by the {@link Method} a proxy is invoked with.
+     * @throws IllegalArgumentException if a method has no operation of its name, or a
+     *                                  parameter or return type the RPC layer cannot carry.
+     */
+    public static Map<Method, RpcMethod> resolve(Class<?> serviceInterface) {
+        if (!serviceInterface.isInterface()) {
+            throw new IllegalArgumentException(serviceInterface.getName() + " is not an interface.");
+        }
+        Map<Method, RpcMethod> methods = new HashMap<>();
+        for (Method method : serviceInterface.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.isDefault()) {
+                continue;
+            }
+            methods.put(method, of(serviceInterface, method));
+        }
+        return Map.copyOf(methods);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RpcMethod of(Class<?> serviceInterface, Method method) {
+        String name = serviceInterface.getSimpleName() + "." + method.getName();
+        Operation operation = Operation.fromMethodName(method.getName());
+        if (operation == null) {
+            throw new IllegalArgumentException(name + " has no operation of its name.");
+        }
+        Type[] parameters = method.getGenericParameterTypes();
+        WireCodec<Object>[] codecs = (WireCodec<Object>[]) new WireCodec<?>[parameters.length];
+        WireCodec<Object> chunkCodec = null;
+        int consumerIndex = -1;
+        for (int i = 0; i < parameters.length; i++) {
+            Type consumed = typeArgument(parameters[i], Consumer.class);
+            if (consumed != null && consumerIndex < 0) {
+                chunkCodec = (WireCodec<Object>) codecOf(consumed);
+                if (chunkCodec == null) {
+                    throw new IllegalArgumentException(name + " takes a Consumer of " + consumed.getTypeName()
+                            + ", which has no codec.");
+                }
+                consumerIndex = i;
+                continue;
+            }
+            codecs[i] = (WireCodec<Object>) codecOf(parameters[i]);
+            if (codecs[i] == null) {
+                throw new IllegalArgumentException(name + " takes a " + parameters[i].getTypeName()
+                        + ", which has no codec.");
+            }
+        }
+        Type result = typeArgument(method.getGenericReturnType(), CompletableFuture.class);
+        if (consumerIndex < 0) {
+            WireCodec<Object> resultCodec = result == null ? null : (WireCodec<Object>) codecOf(result);
+            if (resultCodec == null) {
+                throw new IllegalArgumentException(name + " must return a CompletableFuture of a type with a codec.");
+            }
+            return new RpcMethod(method, operation, Kind.UNARY, codecs, resultCodec, consumerIndex);
+        }
+        if (result == Integer.class) {
+            return new RpcMethod(method, operation, Kind.STREAM, codecs, chunkCodec, consumerIndex);
+        }
+        if (result == Void.class) {
+            return new RpcMethod(method, operation, Kind.SUBSCRIPTION, codecs, chunkCodec, consumerIndex);
+        }
+        throw new IllegalArgumentException(name + " takes a Consumer, so it must return CompletableFuture<Integer> "
+                + "or CompletableFuture<Void>.");
+    }
+
+    /**
+     * @return the codec of the type, a {@code List} of such a type included, or
+     * {@code null} if it has none.
+     */
+    private static WireCodec<?> codecOf(Type type) {
+        if (type instanceof Class) {
+            return DomainCodecs.forType((Class<?>) type);
+        }
+        Type element = typeArgument(type, List.class);
+        if (element == null) {
+            return null;
+        }
+        WireCodec<?> elements = codecOf(element);
+        return elements == null ? null : DomainCodecs.listOf(elements);
+    }
+
+    /**
+     * @return the type argument of {@code type} if it is the given generic class with one
+     * argument, otherwise {@code null}.
+     */
+    private static Type typeArgument(Type type, Class<?> raw) {
+        if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == raw
+                && ((ParameterizedType) type).getActualTypeArguments().length == 1) {
+            return ((ParameterizedType) type).getActualTypeArguments()[0];
+        }
+        return null;
+    }
+
+    /**
+     * @param arguments the arguments the method was called with; the consumer, if any,
+     *                  stays on the caller's side.
+     */
+    public Message request(Object[] arguments) {
+        if (!hasBody) {
+            return new Message(operation);
+        }
+        BinaryWriter out = new BinaryWriter();
+        for (int i = 0; i < codecs.length; i++) {
+            if (codecs[i] != null) {
+                out.writeObject(arguments[i], codecs[i]);
+            }
+        }
+        Message request = Message.withEncodedBody(null, out.toByteArray());
+        request.setOpcode(operation.getOpcode());
+        return request;
+    }
+
+    /**
+     * @return the arguments the request carries, with {@code null} in place of the consumer.
+     * @throws IllegalArgumentException if the body does not hold exactly the arguments.
+     */
+    public Object[] arguments(Message request) {
+        Object[] arguments = new Object[codecs.length];
+        BinaryReader in = request.getBodyReader();
+        for (int i = 0; i < codecs.length; i++) {
+            if (codecs[i] != null) {
+                arguments[i] = in.readObject(codecs[i]);
+            }
+        }
+        if (in.hasRemaining()) {
+            throw new IllegalArgumentException("Request for " + operation + " holds more than its arguments.");
+        }
+        return arguments;
+    }
+
+    /**
+     * @return the body carrying the result of a unary method, or one chunk or event of a
+     * streamed one.
+     */
+    public byte[] encodeResult(Object result) {
+        BinaryWriter out = new BinaryWriter();
+        out.writeObject(result, resultCodec);
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads back what {@link #encodeResult(Object)} wrote.
+     *
+     * @throws IllegalArgumentException if the body does not hold exactly one result.
+     */
+    public Object decodeResult(Message response) {
+        BinaryReader in = response.getBodyReader();
+        Object result = in.readObject(resultCodec);
+        if (in.hasRemaining()) {
+            throw new IllegalArgumentException("Response to " + operation + " holds more than its result.");
+        }
+        return result;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * The position of the {@link Consumer} parameter, or -1 for a {@link Kind#UNARY} method.
+     */
+    public int getConsumerIndex() {
+        return consumerIndex;
+    }
+
+    public int getParameterCount() {
+        return codecs.length;
+    }
+
+    @Override
+    public String toString() {
+        return "RpcMethod{" +
+                "method=" + method.getName() +
+                ", operation=" + operation +
+                ", kind=" + kind +
+                '}';
+    }
+}
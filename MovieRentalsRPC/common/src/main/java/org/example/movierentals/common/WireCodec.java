@@ -0,0 +1,27 @@
+package org.example.movierentals.common;
+
+/**
+ * Writes values of one type to a {@link BinaryWriter} and reads them back from a
+ * {@link BinaryReader}. A codec handles non-null values; nullable fields and list
+ * elements go through {@link BinaryWriter#writeObject} and {@link BinaryWriter#writeList}.
+ * See {@link DomainCodecs} for the codecs of the domain classes.
+ */
+public interface WireCodec<T> {
+    void write(BinaryWriter out, T value);
+
+    T read(BinaryReader in);
+
+    /**
+     * @return the value in a byte array of its own, e.g. for
+     * {@link Message#withEncodedBody(String, byte[])}.
+     */
+    default byte[] encode(T value) {
+        BinaryWriter out = new BinaryWriter();
+        write(out, value);
+        return out.toByteArray();
+    }
+
+    default T decode(byte[] bytes) {
+        return read(new BinaryReader(bytes, 0, bytes.length));
+    }
+}
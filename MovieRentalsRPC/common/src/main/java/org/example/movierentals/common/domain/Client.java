@@ -1,9 +1,12 @@
 package org.example.movierentals.common.domain;
+import org.example.movierentals.codegen.WireType;
+
 import java.util.Objects;
 
 /**
  * @author Cristina
  */
+@WireType
 public class Client extends BaseEntity<Long>{
 
     private String firstName;
@@ -23,6 +26,11 @@ public class Client extends BaseEntity<Long>{
         this.subscribe = subscribe;
     }
 
+    public Client(Client other) {
+        this(other.firstName, other.lastName, other.dateOfBirth, other.email, other.subscribe);
+        this.setId(other.getId());
+    }
+
     public String getFirstName() {
         return firstName;
     }
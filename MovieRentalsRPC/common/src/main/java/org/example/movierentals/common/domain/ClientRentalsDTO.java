@@ -1,9 +1,15 @@
 package org.example.movierentals.common.domain;
 
+import org.example.movierentals.codegen.WireType;
+
+@WireType
 public class ClientRentalsDTO {
     Client client;
     int rentCounter;
 
+    public ClientRentalsDTO() {
+    }
+
     public ClientRentalsDTO(Client client, int rentCounter) {
         this.client = client;
         this.rentCounter = rentCounter;
@@ -1,5 +1,8 @@
 package org.example.movierentals.common.domain;
 
+import org.example.movierentals.codegen.WireType;
+
+@WireType
 public class Movie extends BaseEntity<Long>{
     private String title;
     private int year;
@@ -20,6 +23,11 @@ public class Movie extends BaseEntity<Long>{
         this.available = available;
     }
 
+    public Movie(Movie other) {
+        this(other.title, other.year, other.genre, other.ageRestrictions, other.rentalPrice, other.available);
+        this.setId(other.getId());
+    }
+
     public String getTitle() {
         return title;
     }
@@ -0,0 +1,66 @@
+package org.example.movierentals.common.domain;
+
+import org.example.movierentals.codegen.WireType;
+
+/**
+ * A change pushed to the subscribers of the movie change feed. The movie itself is sent
+ * only when it was added or updated.
+ */
+@WireType
+public class MovieChange {
+    public enum Kind {
+        ADDED,
+        UPDATED,
+        DELETED,
+        /**
+         * A rental of the movie was made, changed or removed.
+         */
+        RENTALS_CHANGED
+    }
+
+    private Kind kind;
+    private Long movieId;
+    private Movie movie;
+
+    public MovieChange() {
+    }
+
+    public MovieChange(Kind kind, Long movieId, Movie movie) {
+        this.kind = kind;
+        this.movieId = movieId;
+        this.movie = movie;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public void setKind(Kind kind) {
+        this.kind = kind;
+    }
+
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(Long movieId) {
+        this.movieId = movieId;
+    }
+
+    public Movie getMovie() {
+        return movie;
+    }
+
+    public void setMovie(Movie movie) {
+        this.movie = movie;
+    }
+
+    @Override
+    public String toString() {
+        return "MovieChange{" +
+                "kind=" + kind +
+                ", movieId=" + movieId +
+                ", movie=" + movie +
+                '}';
+    }
+}
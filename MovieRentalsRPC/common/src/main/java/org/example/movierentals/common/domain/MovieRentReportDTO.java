@@ -1,8 +1,11 @@
 package org.example.movierentals.common.domain;
 
+import org.example.movierentals.codegen.WireType;
+
 import java.time.LocalDateTime;
 import java.util.List;
 
+@WireType
 public class MovieRentReportDTO {
     private Movie movie;
     private List<Client> clientsList;
@@ -1,10 +1,16 @@
 package org.example.movierentals.common.domain;
 
+import org.example.movierentals.codegen.WireType;
+
+@WireType
 public class MovieRentalsDTO {
     Movie movie;
 
     int rentCounter;
 
+    public MovieRentalsDTO() {
+    }
+
     public MovieRentalsDTO(Movie movie, int rentCounter) {
         this.movie = movie;
         this.rentCounter = rentCounter;
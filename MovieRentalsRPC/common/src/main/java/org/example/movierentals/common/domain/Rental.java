@@ -1,7 +1,10 @@
 package org.example.movierentals.common.domain;
 
+import org.example.movierentals.codegen.WireType;
+
 import java.time.LocalDateTime;
 
+@WireType
 public class Rental extends BaseEntity<Long>{
     private Long movieId;
     private Long clientId;
@@ -0,0 +1,137 @@
+package org.example.movierentals.common;
+
+import org.example.movierentals.common.domain.MovieGenres;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryWriterTest {
+    private final BinaryWriter out = new BinaryWriter();
+
+    @Test
+    void numbersRoundTripAtTheirLimits() {
+        long[] longs = {0, 1, -1, 63, -64, 64, 300, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : longs) {
+            out.writeLong(value);
+        }
+        out.writeInt(Integer.MIN_VALUE).writeFloat(2.99f).writeFloat(Float.NaN).writeBoolean(true).writeBoolean(false);
+
+        BinaryReader in = reader();
+        for (long value : longs) {
+            assertEquals(value, in.readLong());
+        }
+        assertEquals(Integer.MIN_VALUE, in.readInt());
+        assertEquals(2.99f, in.readFloat());
+        assertTrue(Float.isNaN(in.readFloat()));
+        assertTrue(in.readBoolean());
+        assertFalse(in.readBoolean());
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    void smallValuesTakeOneByte() {
+        out.writeLong(-64).writeNullableLong(62L).writeString("").writeEnum(MovieGenres.WESTERN);
+
+        assertEquals(4, out.size());
+    }
+
+    @Test
+    void nullableValuesKeepNullApartFromEmpty() {
+        out.writeNullableLong(null).writeNullableLong(0L).writeNullableLong(-5L)
+                .writeString(null).writeString("")
+                .writeEnum(null)
+                .writeDateTime(null)
+                .writeList(null, DomainCodecs.LONG).writeList(List.of(), DomainCodecs.LONG)
+                .writeObject(null, DomainCodecs.STRING).writeObject("", DomainCodecs.STRING);
+
+        BinaryReader in = reader();
+        assertNull(in.readNullableLong());
+        assertEquals(0L, in.readNullableLong());
+        assertEquals(-5L, in.readNullableLong());
+        assertNull(in.readString());
+        assertEquals("", in.readString());
+        assertNull(in.readEnum(MovieGenres.values()));
+        assertNull(in.readDateTime());
+        assertNull(in.readList(DomainCodecs.LONG));
+        assertEquals(List.of(), in.readList(DomainCodecs.LONG));
+        assertNull(in.readObject(DomainCodecs.STRING));
+        assertEquals("", in.readObject(DomainCodecs.STRING));
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    void stringsRoundTripWhateverTheyHold() {
+        String[] values = {"plain ascii", "Title, with; separators\nand\ttabs", "\u00fcn\u00efc\u00f6d\u00e9 \u263A \uD83C\uDFAC"};
+        for (String value : values) {
+            out.writeString(value);
+        }
+
+        BinaryReader in = reader();
+        for (String value : values) {
+            assertEquals(value, in.readString());
+        }
+    }
+
+    @Test
+    void enumsDateTimesAndListsRoundTrip() {
+        LocalDateTime date = LocalDateTime.of(2024, 3, 1, 18, 30, 5, 123456789);
+        LocalDateTime beforeEpoch = LocalDateTime.of(1966, 12, 23, 0, 0);
+        out.writeEnum(MovieGenres.WESTERN)
+                .writeDateTime(date).writeDateTime(beforeEpoch)
+                .writeList(List.of(1L, -2L, 3L), DomainCodecs.LONG);
+
+        BinaryReader in = reader();
+        assertEquals(MovieGenres.WESTERN, in.readEnum(MovieGenres.values()));
+        assertEquals(date, in.readDateTime());
+        assertEquals(beforeEpoch, in.readDateTime());
+        assertEquals(List.of(1L, -2L, 3L), in.readList(DomainCodecs.LONG));
+    }
+
+    @Test
+    void resetWriterIsReusedFromTheStart() {
+        out.writeString("first");
+        out.reset();
+        out.writeString("second");
+
+        assertEquals("second", reader().readString());
+    }
+
+    @Test
+    void readerStaysWithinItsRange() {
+        out.writeString("ignored").writeLong(7).writeString("ignored");
+        byte[] bytes = out.toByteArray();
+
+        BinaryReader in = new BinaryReader(bytes, 8, 1);
+
+        assertEquals(7, in.readLong());
+        assertFalse(in.hasRemaining());
+        assertThrows(IllegalArgumentException.class, in::readLong);
+    }
+
+    @Test
+    void truncatedOrInvalidBytesAreRejected() {
+        out.writeString("truncated");
+        byte[] bytes = out.toByteArray();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new BinaryReader(bytes, 0, bytes.length - 1).readString());
+        assertThrows(IllegalArgumentException.class,
+                () -> new BinaryReader(new byte[]{100}, 0, 1).readEnum(MovieGenres.values()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BinaryReader(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F}, 0, 4)
+                        .readList(DomainCodecs.LONG));
+        assertThrows(IllegalArgumentException.class, () -> out.writeNullableLong(Long.MIN_VALUE));
+    }
+
+    private BinaryReader reader() {
+        byte[] bytes = out.toByteArray();
+        return new BinaryReader(bytes, 0, bytes.length);
+    }
+}
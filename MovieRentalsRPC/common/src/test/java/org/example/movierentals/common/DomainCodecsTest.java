@@ -0,0 +1,133 @@
+package org.example.movierentals.common;
+
+import org.example.movierentals.common.domain.AgeRestrictions;
+import org.example.movierentals.common.domain.Client;
+import org.example.movierentals.common.domain.ClientRentReportDTO;
+import org.example.movierentals.common.domain.ClientRentalsDTO;
+import org.example.movierentals.common.domain.Movie;
+import org.example.movierentals.common.domain.MovieChange;
+import org.example.movierentals.common.domain.MovieGenres;
+import org.example.movierentals.common.domain.MovieRentReportDTO;
+import org.example.movierentals.common.domain.MovieRentalsDTO;
+import org.example.movierentals.common.domain.Rental;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DomainCodecsTest {
+    private static final LocalDateTime RENTED = LocalDateTime.of(2024, 3, 1, 18, 30, 5, 123456789);
+
+    @Test
+    void movieRoundTrips() {
+        Movie movie = movie(1L, "The Good, the Bad; and the Ugly");
+
+        assertRoundTrips(DomainCodecs.MOVIE, movie);
+    }
+
+    @Test
+    void movieWithoutIdOrEnumsRoundTrips() {
+        Movie movie = new Movie("Untitled", 2024, null, null, 0f, false);
+
+        Movie decoded = roundTrip(DomainCodecs.MOVIE, movie);
+
+        assertNull(decoded.getId());
+        assertNull(decoded.getGenre());
+        assertNull(decoded.getAgeRestrictions());
+        assertEquals(movie.toString(), decoded.toString());
+    }
+
+    @Test
+    void clientRoundTrips() {
+        assertRoundTrips(DomainCodecs.CLIENT, client(2L));
+    }
+
+    @Test
+    void rentalRoundTrips() {
+        Rental rental = new Rental(1L, 2L, 8.97f, RENTED, RENTED.plusDays(3));
+        rental.setId(3L);
+
+        assertRoundTrips(DomainCodecs.RENTAL, rental);
+    }
+
+    @Test
+    void rankingDtosRoundTrip() {
+        assertRoundTrips(DomainCodecs.MOVIE_RENTALS, new MovieRentalsDTO(movie(1L, "Alien"), 4));
+        assertRoundTrips(DomainCodecs.CLIENT_RENTALS, new ClientRentalsDTO(client(2L), 7));
+    }
+
+    @Test
+    void reportsRoundTripWithTheirLists() {
+        MovieRentReportDTO movieReport = new MovieRentReportDTO(movie(1L, "Alien"),
+                List.of(client(2L), client(3L)), 5.98f, List.of(RENTED, RENTED.plusHours(1)), 2);
+        ClientRentReportDTO clientReport = new ClientRentReportDTO(client(2L),
+                List.of(movie(1L, "Alien"), movie(4L, "Heat")), 5.98f, List.of(RENTED, RENTED.plusHours(1)), 2);
+
+        assertRoundTrips(DomainCodecs.MOVIE_RENT_REPORT, movieReport);
+        assertRoundTrips(DomainCodecs.CLIENT_RENT_REPORT, clientReport);
+    }
+
+    @Test
+    void emptyReportRoundTrips() {
+        assertRoundTrips(DomainCodecs.CLIENT_RENT_REPORT, new ClientRentReportDTO(client(2L), List.of(), 0f, List.of(), 0));
+    }
+
+    @Test
+    void movieChangesRoundTripWithAndWithoutTheMovie() {
+        assertRoundTrips(DomainCodecs.MOVIE_CHANGE, new MovieChange(MovieChange.Kind.UPDATED, 1L, movie(1L, "Alien")));
+
+        MovieChange deleted = roundTrip(DomainCodecs.MOVIE_CHANGE, new MovieChange(MovieChange.Kind.DELETED, 1L, null));
+
+        assertEquals(MovieChange.Kind.DELETED, deleted.getKind());
+        assertEquals(1L, deleted.getMovieId());
+        assertNull(deleted.getMovie());
+    }
+
+    @Test
+    void listOfWritesEveryElement() {
+        List<Movie> movies = List.of(movie(1L, "Alien"), movie(4L, "Heat"));
+
+        List<Movie> decoded = roundTrip(DomainCodecs.listOf(DomainCodecs.MOVIE), movies);
+
+        assertEquals(movies.toString(), decoded.toString());
+    }
+
+    @Test
+    void forTypeFindsTheCodecOfEveryWireType() {
+        assertSame(DomainCodecs.MOVIE, DomainCodecs.forType(Movie.class));
+        assertSame(DomainCodecs.MOVIE_CHANGE, DomainCodecs.forType(MovieChange.class));
+        assertSame(DomainCodecs.LONG, DomainCodecs.forType(Long.class));
+        assertNull(DomainCodecs.forType(Integer.class));
+    }
+
+    private static <T> void assertRoundTrips(WireCodec<T> codec, T value) {
+        assertEquals(value.toString(), roundTrip(codec, value).toString());
+    }
+
+    private static <T> T roundTrip(WireCodec<T> codec, T value) {
+        BinaryWriter out = new BinaryWriter();
+        codec.write(out, value);
+        byte[] bytes = out.toByteArray();
+        BinaryReader in = new BinaryReader(bytes, 0, bytes.length);
+        T decoded = codec.read(in);
+        assertFalse(in.hasRemaining());
+        return decoded;
+    }
+
+    private static Movie movie(Long id, String title) {
+        Movie movie = new Movie(title, 1966, MovieGenres.WESTERN, AgeRestrictions.R, 2.99f, true);
+        movie.setId(id);
+        return movie;
+    }
+
+    private static Client client(Long id) {
+        Client client = new Client("Ana", "Popescu", "1990-05-17", "ana.popescu@example.org", true);
+        client.setId(id);
+        return client;
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.movierentals.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameCodecTest {
+    private final FrameCodec writer = new FrameCodec();
+    private final FrameCodec reader = new FrameCodec();
+
+    @AfterEach
+    void close() {
+        writer.close();
+        reader.close();
+    }
+
+    @Test
+    void headerBodyAndFramingFieldsRoundTrip() throws IOException {
+        Message request = new Message(Operation.ADD_MOVIE, "Title, with; separators\nand \u00fcn\u00efc\u00f6d\u00e9");
+        request.setCorrelationId(42);
+        request.setMore(true);
+
+        Message decoded = roundTrip(request);
+
+        assertEquals(Operation.ADD_MOVIE.getOpcode(), decoded.getOpcode());
+        assertEquals(42, decoded.getCorrelationId());
+        assertTrue(decoded.isMore());
+        assertEquals("", decoded.getHeader());
+        assertEquals(request.getBody(), decoded.getBody());
+        assertFalse(decoded.hasDeadline());
+    }
+
+    @Test
+    void missingBodyStaysApartFromAnEmptyOne() throws IOException {
+        assertNull(roundTrip(new Message("200 OK")).getBody());
+        assertEquals("", roundTrip(new Message("200 OK", "")).getBody());
+    }
+
+    @Test
+    void encodedBodyIsCopiedAsItIs() throws IOException {
+        byte[] body = {0, 1, 2, (byte) 0xFF, 10, 59};
+
+        Message decoded = roundTrip(Message.withEncodedBody("200 OK", body));
+
+        assertEquals("200 OK", decoded.getHeader());
+        assertArrayEquals(body, decoded.getEncodedBody());
+    }
+
+    @Test
+    void deadlineTravelsAsTheRemainingBudget() throws IOException {
+        Message request = new Message(Operation.GET_ALL_MOVIES);
+        request.setTimeout(Duration.ofSeconds(30));
+
+        Message decoded = roundTrip(request);
+
+        assertTrue(decoded.hasDeadline());
+        assertTrue(decoded.remainingMillis() > 25_000);
+        assertTrue(decoded.remainingMillis() <= 30_000);
+    }
+
+    @Test
+    void batchPartsKeepTheirOperationsAndBodies() throws IOException {
+        Message first = new Message(Operation.GET_MOVIE_BY_ID, "1");
+        Message second = new Message(Operation.DELETE_MOVIE_BY_ID);
+        Message batch = Message.batch(List.of(first, second));
+        batch.setCorrelationId(9);
+
+        Message decoded = roundTrip(batch);
+
+        assertTrue(decoded.hasHeader(Message.BATCH));
+        assertEquals(9, decoded.getCorrelationId());
+        List<Message> parts = decoded.getParts();
+        assertEquals(2, parts.size());
+        assertEquals(Operation.GET_MOVIE_BY_ID.getOpcode(), parts.get(0).getOpcode());
+        assertEquals("1", parts.get(0).getBody());
+        assertEquals(0, parts.get(0).getCorrelationId());
+        assertEquals(Operation.DELETE_MOVIE_BY_ID.getOpcode(), parts.get(1).getOpcode());
+        assertNull(parts.get(1).getBody());
+        assertEquals(1, parts.get(1).getCorrelationId());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = Compression.class, names = {"DEFLATE", "LZ4"})
+    void largePayloadIsCompressedAndInflatedBack(Compression compression) throws IOException {
+        writer.setCompression(compression);
+        String body = "The Good the Bad and the Ugly,1966,WESTERN,R,2.99,true;".repeat(200);
+        Message response = new Message("200 OK", body);
+        response.setTimeout(Duration.ofSeconds(30));
+
+        byte[] frame = encode(response);
+        Message decoded = read(frame);
+
+        assertTrue(frame.length < body.length() / 4);
+        assertEquals(FrameCodec.FLAG_COMPRESSED, frame[5] & FrameCodec.FLAG_COMPRESSED);
+        assertEquals(body, decoded.getBody());
+        assertTrue(decoded.hasDeadline());
+    }
+
+    @Test
+    void smallPayloadIsSentUncompressed() throws IOException {
+        writer.setCompression(Compression.LZ4);
+
+        byte[] frame = encode(new Message("200 OK", "short"));
+
+        assertEquals(0, frame[5] & FrameCodec.FLAG_COMPRESSED);
+        assertEquals("short", read(frame).getBody());
+    }
+
+    @Test
+    void framesSentBackToBackAreReadOneAtATime() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            Message message = new Message("200 OK", "chunk " + i);
+            message.setCorrelationId(i);
+            writer.write(message, Channels.newChannel(out));
+        }
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(out.toByteArray()));
+
+        for (int i = 0; i < 3; i++) {
+            Message decoded = reader.read(channel);
+            assertEquals(i, decoded.getCorrelationId());
+            assertEquals("chunk " + i, decoded.getBody());
+        }
+        assertThrows(EOFException.class, () -> reader.read(channel));
+    }
+
+    @Test
+    void truncatedFrameIsAnEndOfStream() {
+        byte[] frame = encode(new Message("200 OK", "body"));
+
+        assertThrows(EOFException.class, () -> read(Arrays.copyOf(frame, frame.length - 1)));
+    }
+
+    @Test
+    void badMagicIsRejected() {
+        byte[] frame = encode(new Message("200 OK", "body"));
+        frame[0] = 0;
+
+        assertThrows(ProtocolException.class, () -> read(frame));
+    }
+
+    private Message roundTrip(Message message) throws IOException {
+        return read(encode(message));
+    }
+
+    private byte[] encode(Message message) {
+        ByteBuffer frame = writer.encode(message);
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        return bytes;
+    }
+
+    private Message read(byte[] frame) throws IOException {
+        return reader.read(Channels.newChannel(new ByteArrayInputStream(frame)));
+    }
+}
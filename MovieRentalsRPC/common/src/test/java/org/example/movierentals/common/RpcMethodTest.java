@@ -0,0 +1,113 @@
+package org.example.movierentals.common;
+
+import org.example.movierentals.common.domain.AgeRestrictions;
+import org.example.movierentals.common.domain.Movie;
+import org.example.movierentals.common.domain.MovieChange;
+import org.example.movierentals.common.domain.MovieGenres;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RpcMethodTest {
+    private static final String OK = "200 OK";
+
+    private final Map<Method, RpcMethod> methods = RpcMethod.resolve(IMovieService.class);
+
+    interface UncarriableService {
+        CompletableFuture<Integer> getAllMovies();
+    }
+
+    @Test
+    void methodsAreResolvedByKind() throws NoSuchMethodException {
+        assertEquals(RpcMethod.Kind.UNARY, method("getAllMovies").getKind());
+        RpcMethod stream = method("streamAllMovies", Consumer.class);
+        assertEquals(RpcMethod.Kind.STREAM, stream.getKind());
+        assertEquals(0, stream.getConsumerIndex());
+        assertEquals(RpcMethod.Kind.SUBSCRIPTION,
+                method("subscribeMovieChanges", Consumer.class).getKind());
+        assertEquals(Operation.GET_MOVIE_BY_ID, method("getMovieById", Long.class).getOperation());
+    }
+
+    @Test
+    void argumentsRoundTrip() throws NoSuchMethodException {
+        RpcMethod filter = method("filterMoviesByKeyword", String.class);
+
+        Message request = filter.request(new Object[]{"Good, Bad; Ugly"});
+
+        assertEquals(Operation.FILTER_MOVIES_BY_KEYWORD.getOpcode(), request.getOpcode());
+        assertArrayEquals(new Object[]{"Good, Bad; Ugly"}, filter.arguments(request));
+    }
+
+    @Test
+    void nullArgumentRoundTrips() throws NoSuchMethodException {
+        RpcMethod getById = method("getMovieById", Long.class);
+
+        assertArrayEquals(new Object[]{null}, getById.arguments(getById.request(new Object[]{null})));
+    }
+
+    @Test
+    void methodWithoutArgumentsSendsNoBody() throws NoSuchMethodException {
+        Message request = method("getAllMovies").request(new Object[0]);
+
+        assertNull(request.getBody());
+        assertEquals(Operation.GET_ALL_MOVIES.getOpcode(), request.getOpcode());
+    }
+
+    @Test
+    void resultsRoundTrip() throws NoSuchMethodException {
+        RpcMethod getAll = method("getAllMovies");
+        List<Movie> movies = List.of(movie(1L, "Alien"), movie(2L, "Heat"));
+
+        Object decoded = getAll.decodeResult(Message.withEncodedBody(OK, getAll.encodeResult(movies)));
+
+        assertEquals(movies.toString(), decoded.toString());
+        assertNull(getAll.decodeResult(Message.withEncodedBody(OK, getAll.encodeResult(null))));
+    }
+
+    @Test
+    void chunksAndEventsUseTheConsumerType() throws NoSuchMethodException {
+        RpcMethod subscribe = method("subscribeMovieChanges", Consumer.class);
+        MovieChange change = new MovieChange(MovieChange.Kind.ADDED, 1L, movie(1L, "Alien"));
+
+        Object decoded = subscribe.decodeResult(Message.withEncodedBody(OK, subscribe.encodeResult(change)));
+
+        assertEquals(change.toString(), decoded.toString());
+    }
+
+    @Test
+    void bodyHoldingMoreThanTheResultIsRejected() throws NoSuchMethodException {
+        RpcMethod getById = method("getMovieById", Long.class);
+        byte[] result = getById.encodeResult(movie(1L, "Alien"));
+        byte[] twice = new byte[result.length * 2];
+        System.arraycopy(result, 0, twice, 0, result.length);
+        System.arraycopy(result, 0, twice, result.length, result.length);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> getById.decodeResult(Message.withEncodedBody(OK, twice)));
+    }
+
+    @Test
+    void typesWithoutACodecAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RpcMethod.resolve(UncarriableService.class));
+        assertThrows(IllegalArgumentException.class, () -> RpcMethod.resolve(Movie.class));
+    }
+
+    private RpcMethod method(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return methods.get(IMovieService.class.getMethod(name, parameterTypes));
+    }
+
+    private static Movie movie(Long id, String title) {
+        Movie movie = new Movie(title, 1966, MovieGenres.WESTERN, AgeRestrictions.R, 2.99f, true);
+        movie.setId(id);
+        return movie;
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.movierentals.server;
+
+import org.example.movierentals.common.Message;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline of the request the current thread works for, so that code far from the
+ * transport, like the repositories, can stop when the client has given up.
+ * <p>
+ * The deadline is set by the dispatcher for the duration of a handler and carried over
+ * to service calls by {@link #propagating(ExecutorService)}.
+ */
+public final class RequestDeadline {
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * Makes the deadline of the request, if it has one, current for this thread.
+     */
+    public static void set(Message request) {
+        if (request.hasDeadline()) {
+            DEADLINE.set(request.getDeadline());
+        } else {
+            DEADLINE.remove();
+        }
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * @return the milliseconds left for the current request, or {@link Long#MAX_VALUE} if it has no deadline.
+     */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    public static boolean isExpired() {
+        return remainingMillis() == 0;
+    }
+
+    /**
+     * The remaining budget as a JDBC query timeout: whole seconds rounded up, 0 for none.
+     */
+    public static int queryTimeoutSeconds() {
+        long remaining = remainingMillis();
+        if (remaining == Long.MAX_VALUE) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, (remaining + 999) / 1000));
+    }
+
+    /**
+     * Wraps an executor so that every task runs under the deadline that was current on
+     * the thread submitting it.
+     */
+    public static ExecutorService propagating(ExecutorService executor) {
+        return new AbstractExecutorService() {
+            @Override
+            public void execute(Runnable command) {
+                Long deadline = DEADLINE.get();
+                executor.execute(() -> {
+                    Long previous = DEADLINE.get();
+                    DEADLINE.set(deadline);
+                    try {
+                        command.run();
+                    } finally {
+                        DEADLINE.set(previous);
+                    }
+                });
+            }
+
+            @Override
+            public void shutdown() {
+                executor.shutdown();
+            }
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                return executor.shutdownNow();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return executor.isShutdown();
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return executor.isTerminated();
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+                return executor.awaitTermination(timeout, unit);
+            }
+        };
+    }
+}
@@ -4,338 +4,181 @@ import org.example.movierentals.common.IClientService;
 import org.example.movierentals.common.IRentalService;
 import org.example.movierentals.common.Message;
 import org.example.movierentals.common.IMovieService;
-import org.example.movierentals.common.domain.*;
+import org.example.movierentals.common.Operation;
 import org.example.movierentals.server.errors.ClientError;
 import org.example.movierentals.server.errors.MovieError;
 import org.example.movierentals.server.errors.RentalError;
 import org.example.movierentals.server.repository.ClientDBRepository;
 import org.example.movierentals.server.repository.MovieDBRepository;
 import org.example.movierentals.server.repository.RentalDBRepository;
+import org.example.movierentals.server.service.MovieChangeFeed;
+import org.example.movierentals.server.service.ResponseCache;
+import org.example.movierentals.server.service.SingleFlight;
 import org.example.movierentals.server.service.SClientServiceImpl;
 import org.example.movierentals.server.service.SMovieServiceImpl;
 import org.example.movierentals.server.service.SRentalServiceImpl;
+import org.example.movierentals.server.tcp.AdmissionLimit;
+import org.example.movierentals.server.tcp.AsyncHandler;
+import org.example.movierentals.server.tcp.ListenerConfig;
+import org.example.movierentals.server.tcp.ServiceSkeleton;
 import org.example.movierentals.server.tcp.TcpServer;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.concurrent.ExecutionException;
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.function.UnaryOperator;
 
 
 public class ServerApp {
+    private static final Operation[] MOVIE_LISTINGS = {Operation.GET_ALL_MOVIES, Operation.FILTER_MOVIES_BY_KEYWORD};
+    private static final Operation[] CLIENT_LISTINGS = {Operation.GET_ALL_CLIENTS};
 
     public static void main(String[] args) {
 
         System.out.println("Server is running...");
 
-        ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        TcpServer.Mode mode = TcpServer.Mode.valueOf(System.getProperty("server.mode", "blocking").toUpperCase());
+        System.out.println("Server mode: " + mode);
+
+        ServerExecutorsConfig executorsConfig = ServerExecutorsConfig.fromSystemProperties();
+        System.out.println("Server executors: " + executorsConfig);
+        ServerExecutors executors = new ServerExecutors(executorsConfig, mode);
+        ExecutorService databaseExecutor = executors.getDatabaseExecutor();
 
         MovieDBRepository movieRepository = new MovieDBRepository();
         ClientDBRepository clientRepository = new ClientDBRepository();
         RentalDBRepository rentalRepository = new RentalDBRepository();
 
-        IMovieService movieService = new SMovieServiceImpl(executorService, movieRepository);
-        IClientService clientService = new SClientServiceImpl(executorService, clientRepository);
-        IRentalService rentalService = new SRentalServiceImpl(executorService, rentalRepository, movieRepository, clientRepository);
-
-        TcpServer tcpServer = new TcpServer(executorService);
-
-        /**
-         * Handle get all Movies from Repository
-         */
-        UnaryOperator<Message> getAllMoviesHandler = (Message m) -> {
-            Future<String> response = movieService.getAllMovies();
-            return getResponseMessageToSend(response, MovieError.MOVIES_NOT_FOUND.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("getAllMovies", getAllMoviesHandler);
-
-
-        /**
-         * Handle add new Movie to Repository
-         */
-        UnaryOperator<Message> addMovieHandler = (Message m) -> {
-            String[] bodyArray = m.getBody().split(",");
-            String title = bodyArray[0];
-            int year = Integer.parseInt(bodyArray[1]);
-            MovieGenres genre = MovieGenres.valueOf(bodyArray[2]);
-            AgeRestrictions ageRestriction = AgeRestrictions.valueOf(bodyArray[3]);
-            float rentalPrice = Float.parseFloat(bodyArray[4]);
-            boolean available = Boolean.parseBoolean(bodyArray[5]);
-
-            Movie movie = new Movie(title, year, genre, ageRestriction, rentalPrice, available);
-
-            Future<String> response = movieService.addMovie(movie);
-
-            return getResponseMessageToSend(response, MovieError.MOVIE_NOT_ADDED.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("addMovie", addMovieHandler);
-
-        /**
-         * Handle get Movie from Repository by ID
-         */
-        UnaryOperator<Message> getMovieByIdHandler = (Message m) -> {
-            Long id = Long.parseLong(m.getBody());
-            Future<String> response = movieService.getMovieById(id);
-            return getResponseMessageToSend(response, MovieError.MOVIE_NOT_FOUND.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("getMovieById", getMovieByIdHandler);
-
-
-        /**
-         * Handle update Movie from Repository
-         */
-        UnaryOperator<Message> updateMovieHandler = (Message m) -> {
-            String[] bodyArray = m.getBody().split(",");
-            Long id = Long.parseLong(bodyArray[0]);
-            String title = bodyArray[1];
-            int year = Integer.parseInt(bodyArray[2]);
-            MovieGenres genre = MovieGenres.valueOf(bodyArray[3]);
-            AgeRestrictions ageRestriction = AgeRestrictions.valueOf(bodyArray[4]);
-            float rentalPrice = Float.parseFloat(bodyArray[5]);
-            boolean available = Boolean.parseBoolean(bodyArray[6]);
-
-            Movie movie = new Movie(title, year, genre, ageRestriction, rentalPrice, available);
-            movie.setId(id);
-
-            Future<String> response = movieService.updateMovie(movie);
-
-            return getResponseMessageToSend(response, MovieError.MOVIE_NOT_UPDATED.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("updateMovie", updateMovieHandler);
-
-
-        /**
-         * Handle delete Movie from Repository by ID
-         */
-        UnaryOperator<Message> deleteMovieByIdHandler = (Message m) -> {
-            Long id = Long.parseLong(m.getBody());
-            Future<String> response = movieService.deleteMovieById(id);
-            return getResponseMessageToSend(response, MovieError.MOVIE_NOT_DELETED.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("deleteMovieById", deleteMovieByIdHandler);
-
-
-        /**
-         * Handle filter Movies by keyword
-         */
-        UnaryOperator<Message> filterMoviesByKeywordHandler = (Message m) -> {
-            String keyword = m.getBody();
-            Future<String> response = movieService.filterMoviesByKeyword(keyword);
-            return getResponseMessageToSend(response, MovieError.MOVIE_TITLE_NO_MATCH.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("filterMoviesByKeyword", filterMoviesByKeywordHandler);
-
-
-        /**
-         * Handle get all Clients from Repository
-         */
-        UnaryOperator<Message> getAllClientsHandler = (Message m) -> {
-            Future<String> response = clientService.getAllClients();
-            return getResponseMessageToSend(response, ClientError.CLIENTS_NOT_FOUND.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("getAllClients", getAllClientsHandler);
-
-
-        /**
-         * Handle add new Client in Repository
-         */
-        UnaryOperator<Message> addClientHandler = (Message m) -> {
-            String[] clientString = m.getBody().split(",");
-            String firstName = clientString[0];
-            String lastName = clientString[1];
-            String dateOfBirth = clientString[2];
-            String email = clientString[3];
-            boolean subscribe = Boolean.parseBoolean(clientString[4]);
-
-            Client client = new Client(firstName, lastName, dateOfBirth, email, subscribe);
-
-            Future<String> response = clientService.addClient(client);
-            return getResponseMessageToSend(response, ClientError.CLIENT_NOT_ADDED.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("addClient", addClientHandler);
-
-
-        /**
-         * Handle get Client by ID
-         */
-        UnaryOperator<Message> getClientByIdHandler = (Message m) -> {
-            Long id = Long.parseLong(m.getBody());
-            Future<String> response = clientService.getClientById(id);
-            return getResponseMessageToSend(response, ClientError.CLIENT_NOT_FOUND.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("getClientById", getClientByIdHandler);
-
-
-        /**
-         * Handle update Client
-         */
-        UnaryOperator<Message> updateClientHandler = (Message m) -> {
-            String[] clientString = m.getBody().split(",");
-            Long clientId = Long.parseLong(clientString[0]);
-            String firstName = clientString[1];
-            String lastName = clientString[2];
-            String dateOfBirth = clientString[3];
-            String email = clientString[4];
-            boolean subscribe = Boolean.parseBoolean(clientString[5]);
-
-            Client client = new Client(firstName, lastName, dateOfBirth, email, subscribe);
-            client.setId(clientId);
-
-            Future<String> response = clientService.updateClient(client);
-            return getResponseMessageToSend(response, ClientError.CLIENT_NOT_UPDATED.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("updateClient", updateClientHandler);
-
-
-        /**
-         * Handle Delete Client by ID
-         */
-        UnaryOperator<Message> deleteClientByIdHandler = (Message m) -> {
-            Long id = Long.parseLong(m.getBody());
-            Future<String> response = clientService.deleteClientById(id);
-            return getResponseMessageToSend(response, ClientError.CLIENT_NOT_DELETED.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("deleteClientById", deleteClientByIdHandler);
-
-
-        /**
-         * Handle filter Clients by keyword
-         */
-        UnaryOperator<Message> filterClientsByKeywordHandler = (Message m) -> {
-            String keyword = m.getBody();
-            Future<String> response = clientService.filterClientsByKeyword(keyword);
-            return getResponseMessageToSend(response, ClientError.CLIENT_NAME_NO_MATCH.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("filterClientsByKeyword", filterClientsByKeywordHandler);
-
-
-        /**
-         * Handle get a Rental by ID
-         */
-        UnaryOperator<Message> getRentalByIdHandler = (Message m) -> {
-            Long rentalId = Long.parseLong(m.getBody());
-            Future<String> response = rentalService.getRentalById(rentalId);
-            return getResponseMessageToSend(response, RentalError.RENTAL_NOT_FOUND.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("getRentalById", getRentalByIdHandler);
-
-        /**
-         * Handle get all Rentals from Repository
-         */
-        UnaryOperator<Message> getAllRentalsHandler = (Message m) -> {
-            Future<String> response = rentalService.getAllRentals();
-            return getResponseMessageToSend(response, RentalError.RENTALS_NOT_FOUND.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("getAllRentals", getAllRentalsHandler);
-
-        /**
-         * Handle rent a Movie
-         */
-        UnaryOperator<Message> rentAMovieHandler = (Message m) -> {
-            String[] rentalStringArray = m.getBody().split(",");
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS");
-
-            Long movieId = Long.parseLong(rentalStringArray[0]);
-            Long clientId = Long.parseLong(rentalStringArray[1]);
-            float rentalCharge = Float.parseFloat(rentalStringArray[2]);
-            LocalDateTime rentalDate = LocalDateTime.parse(rentalStringArray[3], formatter);
-            LocalDateTime dueDate = LocalDateTime.parse(rentalStringArray[4], formatter);
+        MovieChangeFeed movieChangeFeed = new MovieChangeFeed(executors.getPushExecutor());
 
-            Rental rental = new Rental(movieId, clientId, rentalCharge, rentalDate, dueDate);
+        // Shared by all services, since a rental report reads movies and clients too.
+        SingleFlight reads = new SingleFlight();
+        IMovieService movieService = new SMovieServiceImpl(databaseExecutor, movieRepository, movieChangeFeed, reads);
+        IClientService clientService = new SClientServiceImpl(databaseExecutor, clientRepository, reads);
+        IRentalService rentalService = new SRentalServiceImpl(databaseExecutor, rentalRepository, movieRepository, clientRepository, movieChangeFeed, reads);
 
-            Future<String> response = rentalService.rentAMovie(rental);
-            return getResponseMessageToSend(response, RentalError.RENTAL_NOT_ADDED.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("rentAMovie", rentAMovieHandler);
-
-        /**
-         * Handle update a Rent Transaction
-         */
-        UnaryOperator<Message> updateRentalTransactionHandler = (Message m) -> {
-            String[] rentalStringArray = m.getBody().split(",");
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS");
-
-            Long rentalId = Long.parseLong(rentalStringArray[0]);
-            Long movieId = Long.parseLong(rentalStringArray[1]);
-            Long clientId = Long.parseLong(rentalStringArray[2]);
-            float rentalCharge = Float.parseFloat(rentalStringArray[3]);
-            LocalDateTime rentalDate = LocalDateTime.parse(rentalStringArray[4], formatter);
-            LocalDateTime dueDate = LocalDateTime.parse(rentalStringArray[5], formatter);
-
-            Rental rental = new Rental(movieId, clientId, rentalCharge, rentalDate, dueDate);
-            rental.setId(rentalId);
-
-            Future<String> response = rentalService.updateRentalTransaction(rental);
-            return getResponseMessageToSend(response, RentalError.RENTAL_NOT_UPDATED.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("updateRentalTransaction", updateRentalTransactionHandler);
-
-        /**
-         * Handle Delete a Rental Transaction by ID
-         */
-        UnaryOperator<Message> deleteMovieRentalHandler = (Message m) -> {
-            Long id = Long.parseLong(m.getBody());
-            Future<String> response = rentalService.deleteMovieRental(id);
-            return getResponseMessageToSend(response, RentalError.RENTAL_NOT_DELETED.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("deleteMovieRental", deleteMovieRentalHandler);
-
-        /**
-         * Handle generate Movies by rent counter Report
-         */
-        UnaryOperator<Message> moviesByRentNumberHandler = (Message m) -> {
-            Future<String> response = rentalService.moviesByRentNumber();
-            return getResponseMessageToSend(response, RentalError.RENTAL_NO_REPORT.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("moviesByRentNumber", moviesByRentNumberHandler);
-
-        /**
-         * Handle generate Clients by rent counter Report
-         */
-        UnaryOperator<Message> clientsByRentNumberHandler = (Message m) -> {
-            Future<String> response = rentalService.clientsByRentNumber();
-            return getResponseMessageToSend(response, RentalError.RENTAL_NO_REPORT.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("clientsByRentNumber", clientsByRentNumberHandler);
-
-        /**
-         * Handle generate Report by Client ID
-         */
-        UnaryOperator<Message> generateReportByClientHandler = (Message m) -> {
-            Long id = Long.parseLong(m.getBody());
-            Future<String> response = rentalService.generateReportByClient(id);
-            return getResponseMessageToSend(response, RentalError.RENTAL_NO_REPORT_ID_NOT_FOUND.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("generateReportByClient", generateReportByClientHandler);
-
-        /**
-         * Handle generate Report by Movie ID
-         */
-        UnaryOperator<Message> generateReportByMovieHandler = (Message m) -> {
-            Long id = Long.parseLong(m.getBody());
-            Future<String> response = rentalService.generateReportByMovie(id);
-            return getResponseMessageToSend(response, RentalError.RENTAL_NO_REPORT_ID_NOT_FOUND.getErrorMessage());
-        };
-        tcpServer.addMessageHandler("generateReportByMovie", generateReportByMovieHandler);
+        ListenerConfig listenerConfig = ListenerConfig.fromSystemProperties();
+        System.out.println("Listener: " + listenerConfig);
+        TcpServer tcpServer = new TcpServer(executors.getDispatchExecutor(), executors.getConnectionExecutor(), mode, listenerConfig);
+
+        /**
+         * Full-table listings and reports scan whole tables, so only a few of them may run
+         * at once; single-row lookups and updates use the default limit.
+         */
+        AdmissionLimit listingsLimit = AdmissionLimit.fromSystemProperties("listings", 4, 16);
+        AdmissionLimit reportsLimit = AdmissionLimit.fromSystemProperties("reports", 2, 8);
+        AdmissionLimit subscriptionsLimit = AdmissionLimit.fromSystemProperties("subscriptions", 1024, 0);
+        tcpServer.setDefaultAdmissionLimit(AdmissionLimit.fromSystemProperties("default",
+                executorsConfig.getDispatchThreads(), executorsConfig.getDispatchQueue()));
+        System.out.println("Admission limits: " + listingsLimit + ", " + reportsLimit + ", " + subscriptionsLimit);
+
+        /**
+         * Catalog listings change a few times per hour, so their responses are cached until
+         * a handler below changes the table they list
+         */
+        ResponseCache responseCache = ResponseCache.fromSystemProperties(256, 32 * 1024 * 1024, Duration.ofMinutes(5));
+        System.out.println("Response cache: " + responseCache);
+
+        /**
+         * Requests are decoded, passed to the services and answered by the skeletons; each
+         * operation below only says which error it answers with and what limits it runs under
+         */
+        ServiceSkeleton<IMovieService> movies = new ServiceSkeleton<>(IMovieService.class, movieService);
+        ServiceSkeleton<IClientService> clients = new ServiceSkeleton<>(IClientService.class, clientService);
+        ServiceSkeleton<IRentalService> rentals = new ServiceSkeleton<>(IRentalService.class, rentalService);
+
+        /**
+         * Movies
+         */
+        tcpServer.addAsyncHandler(Operation.GET_ALL_MOVIES, cached(responseCache, movies, Operation.GET_ALL_MOVIES,
+                MovieError.MOVIES_NOT_FOUND.getErrorMessage()), listingsLimit);
+        tcpServer.addStreamHandler(Operation.STREAM_ALL_MOVIES, movies.streamHandler(Operation.STREAM_ALL_MOVIES,
+                MovieError.MOVIES_NOT_FOUND.getErrorMessage()), listingsLimit);
+        tcpServer.addAsyncHandler(Operation.ADD_MOVIE, invalidating(movies.handler(Operation.ADD_MOVIE,
+                MovieError.MOVIE_NOT_ADDED.getErrorMessage()), responseCache, MOVIE_LISTINGS));
+        tcpServer.addAsyncHandler(Operation.GET_MOVIE_BY_ID, movies.handler(Operation.GET_MOVIE_BY_ID,
+                MovieError.MOVIE_NOT_FOUND.getErrorMessage()));
+        tcpServer.addAsyncHandler(Operation.UPDATE_MOVIE, invalidating(movies.handler(Operation.UPDATE_MOVIE,
+                MovieError.MOVIE_NOT_UPDATED.getErrorMessage()), responseCache, MOVIE_LISTINGS));
+        tcpServer.addAsyncHandler(Operation.DELETE_MOVIE_BY_ID, invalidating(movies.handler(Operation.DELETE_MOVIE_BY_ID,
+                MovieError.MOVIE_NOT_DELETED.getErrorMessage()), responseCache, MOVIE_LISTINGS));
+        tcpServer.addAsyncHandler(Operation.FILTER_MOVIES_BY_KEYWORD, cached(responseCache, movies, Operation.FILTER_MOVIES_BY_KEYWORD,
+                MovieError.MOVIE_TITLE_NO_MATCH.getErrorMessage()), listingsLimit);
+
+        /**
+         * Every change is pushed as one chunk until the subscriber is dropped or its connection closes
+         */
+        tcpServer.addStreamHandler(Operation.SUBSCRIBE_MOVIE_CHANGES, movies.streamHandler(Operation.SUBSCRIBE_MOVIE_CHANGES,
+                null), subscriptionsLimit);
+
+        /**
+         * Clients
+         */
+        tcpServer.addAsyncHandler(Operation.GET_ALL_CLIENTS, cached(responseCache, clients, Operation.GET_ALL_CLIENTS,
+                ClientError.CLIENTS_NOT_FOUND.getErrorMessage()), listingsLimit);
+        tcpServer.addAsyncHandler(Operation.ADD_CLIENT, invalidating(clients.handler(Operation.ADD_CLIENT,
+                ClientError.CLIENT_NOT_ADDED.getErrorMessage()), responseCache, CLIENT_LISTINGS));
+        tcpServer.addAsyncHandler(Operation.GET_CLIENT_BY_ID, clients.handler(Operation.GET_CLIENT_BY_ID,
+                ClientError.CLIENT_NOT_FOUND.getErrorMessage()));
+        tcpServer.addAsyncHandler(Operation.UPDATE_CLIENT, invalidating(clients.handler(Operation.UPDATE_CLIENT,
+                ClientError.CLIENT_NOT_UPDATED.getErrorMessage()), responseCache, CLIENT_LISTINGS));
+        tcpServer.addAsyncHandler(Operation.DELETE_CLIENT_BY_ID, invalidating(clients.handler(Operation.DELETE_CLIENT_BY_ID,
+                ClientError.CLIENT_NOT_DELETED.getErrorMessage()), responseCache, CLIENT_LISTINGS));
+        tcpServer.addAsyncHandler(Operation.FILTER_CLIENTS_BY_KEYWORD, clients.handler(Operation.FILTER_CLIENTS_BY_KEYWORD,
+                ClientError.CLIENT_NAME_NO_MATCH.getErrorMessage()), listingsLimit);
+
+        /**
+         * Rentals and reports
+         */
+        tcpServer.addAsyncHandler(Operation.GET_RENTAL_BY_ID, rentals.handler(Operation.GET_RENTAL_BY_ID,
+                RentalError.RENTAL_NOT_FOUND.getErrorMessage()));
+        tcpServer.addAsyncHandler(Operation.GET_ALL_RENTALS, rentals.handler(Operation.GET_ALL_RENTALS,
+                RentalError.RENTALS_NOT_FOUND.getErrorMessage()), listingsLimit);
+        tcpServer.addStreamHandler(Operation.STREAM_ALL_RENTALS, rentals.streamHandler(Operation.STREAM_ALL_RENTALS,
+                RentalError.RENTALS_NOT_FOUND.getErrorMessage()), listingsLimit);
+        tcpServer.addAsyncHandler(Operation.RENT_A_MOVIE, rentals.handler(Operation.RENT_A_MOVIE,
+                RentalError.RENTAL_NOT_ADDED.getErrorMessage()));
+        tcpServer.addAsyncHandler(Operation.UPDATE_RENTAL_TRANSACTION, rentals.handler(Operation.UPDATE_RENTAL_TRANSACTION,
+                RentalError.RENTAL_NOT_UPDATED.getErrorMessage()));
+        tcpServer.addAsyncHandler(Operation.DELETE_MOVIE_RENTAL, rentals.handler(Operation.DELETE_MOVIE_RENTAL,
+                RentalError.RENTAL_NOT_DELETED.getErrorMessage()));
+        tcpServer.addAsyncHandler(Operation.MOVIES_BY_RENT_NUMBER, rentals.handler(Operation.MOVIES_BY_RENT_NUMBER,
+                RentalError.RENTAL_NO_REPORT.getErrorMessage()), reportsLimit);
+        tcpServer.addAsyncHandler(Operation.CLIENTS_BY_RENT_NUMBER, rentals.handler(Operation.CLIENTS_BY_RENT_NUMBER,
+                RentalError.RENTAL_NO_REPORT.getErrorMessage()), reportsLimit);
+        tcpServer.addAsyncHandler(Operation.GENERATE_REPORT_BY_CLIENT, rentals.handler(Operation.GENERATE_REPORT_BY_CLIENT,
+                RentalError.RENTAL_NO_REPORT_ID_NOT_FOUND.getErrorMessage()), reportsLimit);
+        tcpServer.addAsyncHandler(Operation.GENERATE_REPORT_BY_MOVIE, rentals.handler(Operation.GENERATE_REPORT_BY_MOVIE,
+                RentalError.RENTAL_NO_REPORT_ID_NOT_FOUND.getErrorMessage()), reportsLimit);
+
+        /**
+         * On SIGTERM or Ctrl+C let the requests in flight finish before the process exits
+         */
+        Duration shutdownGrace = Duration.ofMillis(Long.getLong("server.shutdown.graceMillis", 30_000));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Server is shutting down...");
+            movieChangeFeed.close();
+            tcpServer.stop(shutdownGrace);
+            executors.shutdown();
+            System.out.println("Response cache: " + responseCache);
+            System.out.println("Coalesced reads: " + reads);
+        }, "shutdown"));
 
         tcpServer.startServer();
-        executorService.shutdown();
+        executors.shutdown();
+    }
+
+    /**
+     * Drops the cached listings once the change is done, whether it succeeded or not,
+     * and before the response is sent, so the client that made it reads it back.
+     */
+    private static AsyncHandler invalidating(AsyncHandler handler, ResponseCache cache, Operation... listings) {
+        return (Message m) -> handler.handle(m).whenComplete((message, e) -> cache.invalidate(listings));
     }
 
-    private static Message getResponseMessageToSend(Future<String> response, String error) {
-        try {
-            String serviceResponse = response.get();
-            if(serviceResponse.contains("400 Error")){
-                return new Message("400 Error", error);
-            } else {
-                return new Message("200 OK", response.get());
-            }
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-            return new Message("400 Error", error);
-        }
+    /**
+     * Answers repeated listings with the same arguments from the cache.
+     */
+    private static AsyncHandler cached(ResponseCache cache, ServiceSkeleton<?> skeleton, Operation operation, String error) {
+        AsyncHandler handler = skeleton.handler(operation, error);
+        return (Message m) -> cache.getOrLoad(operation, m.getEncodedBody(), () -> handler.handle(m));
     }
-}
\ No newline at end of file
+}
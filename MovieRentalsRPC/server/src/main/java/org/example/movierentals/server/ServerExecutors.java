@@ -0,0 +1,96 @@
+package org.example.movierentals.server;
+
+import org.example.movierentals.server.tcp.TcpServer;
+import org.example.movierentals.server.tcp.VirtualThreads;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The server's thread pools, one per role, so that no pool ever waits on work queued
+ * behind itself:
+ * <ul>
+ *     <li>acceptor threads, started by {@link TcpServer#startServer()}, take new
+ *     connections (in NIO mode they also do all socket I/O);</li>
+ *     <li>connection I/O threads read requests from blocking sockets, one per connection;</li>
+ *     <li>dispatch threads run request handlers, which wait for service calls;</li>
+ *     <li>database threads run service calls, which never wait on another pool;</li>
+ *     <li>push threads deliver change events to subscribers.</li>
+ * </ul>
+ * Every pool is bounded. A connection above the limit is closed, a request that finds
+ * the dispatch queue full is answered with an error, and a service call that finds the
+ * database queue full runs on the calling dispatch thread, which slows intake down.
+ * Service calls run under the {@link RequestDeadline} of the request that made them.
+ */
+public class ServerExecutors {
+    private final ExecutorService connectionExecutor;
+    private final ExecutorService dispatchExecutor;
+    private final ExecutorService databaseExecutor;
+    private final ExecutorService pushExecutor;
+
+    public ServerExecutors(ServerExecutorsConfig config, TcpServer.Mode mode) {
+        if (mode == TcpServer.Mode.VIRTUAL) {
+            this.connectionExecutor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            this.dispatchExecutor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        } else {
+            this.connectionExecutor = new ThreadPoolExecutor(0, config.getMaxConnections(),
+                    60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    new NamedThreadFactory("connection"), new ThreadPoolExecutor.AbortPolicy());
+            this.dispatchExecutor = new ThreadPoolExecutor(config.getDispatchThreads(), config.getDispatchThreads(),
+                    0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(config.getDispatchQueue()),
+                    new NamedThreadFactory("dispatch"), new ThreadPoolExecutor.AbortPolicy());
+        }
+        this.databaseExecutor = RequestDeadline.propagating(new ThreadPoolExecutor(
+                config.getDatabaseThreads(), config.getDatabaseThreads(),
+                0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(config.getDatabaseQueue()),
+                new NamedThreadFactory("db"), new ThreadPoolExecutor.CallerRunsPolicy()));
+        this.pushExecutor = new ThreadPoolExecutor(config.getPushThreads(), config.getPushThreads(),
+                0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory("push"));
+    }
+
+    public ExecutorService getConnectionExecutor() {
+        return connectionExecutor;
+    }
+
+    public ExecutorService getDispatchExecutor() {
+        return dispatchExecutor;
+    }
+
+    public ExecutorService getDatabaseExecutor() {
+        return databaseExecutor;
+    }
+
+    /**
+     * Runs at most one delivery task per subscriber at a time, so its queue needs no bound.
+     */
+    public ExecutorService getPushExecutor() {
+        return pushExecutor;
+    }
+
+    public void shutdown() {
+        connectionExecutor.shutdown();
+        dispatchExecutor.shutdown();
+        databaseExecutor.shutdown();
+        pushExecutor.shutdown();
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.movierentals.server;
+
+/**
+ * Sizing of the server's thread pools, see {@link ServerExecutors}.
+ */
+public class ServerExecutorsConfig {
+    private int maxConnections = 1024;
+    private int dispatchThreads = 32;
+    private int dispatchQueue = 1024;
+    private int databaseThreads = 8;
+    private int databaseQueue = 256;
+    private int pushThreads = 2;
+
+    public ServerExecutorsConfig() {
+    }
+
+    /**
+     * Reads the settings from {@code server.*} system properties, falling back to the defaults.
+     */
+    public static ServerExecutorsConfig fromSystemProperties() {
+        ServerExecutorsConfig config = new ServerExecutorsConfig();
+        config.setMaxConnections(Integer.getInteger("server.io.maxConnections", config.getMaxConnections()));
+        config.setDispatchThreads(Integer.getInteger("server.dispatch.threads", config.getDispatchThreads()));
+        config.setDispatchQueue(Integer.getInteger("server.dispatch.queue", config.getDispatchQueue()));
+        config.setDatabaseThreads(Integer.getInteger("server.db.threads", config.getDatabaseThreads()));
+        config.setDatabaseQueue(Integer.getInteger("server.db.queue", config.getDatabaseQueue()));
+        config.setPushThreads(Integer.getInteger("server.push.threads", config.getPushThreads()));
+        return config;
+    }
+
+    /**
+     * Connections served at once in blocking mode, each holding one I/O thread.
+     * Connections accepted beyond this are closed straight away.
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Threads running request handlers. Handlers mostly wait for database work, so this
+     * should be well above {@link #getDatabaseThreads()}.
+     */
+    public int getDispatchThreads() {
+        return dispatchThreads;
+    }
+
+    public void setDispatchThreads(int dispatchThreads) {
+        this.dispatchThreads = dispatchThreads;
+    }
+
+    /**
+     * Requests waiting for a dispatch thread after passing admission control; requests
+     * beyond this are answered with a busy status.
+     */
+    public int getDispatchQueue() {
+        return dispatchQueue;
+    }
+
+    public void setDispatchQueue(int dispatchQueue) {
+        this.dispatchQueue = dispatchQueue;
+    }
+
+    /**
+     * Threads running service and repository work, i.e. the most database queries in flight.
+     */
+    public int getDatabaseThreads() {
+        return databaseThreads;
+    }
+
+    public void setDatabaseThreads(int databaseThreads) {
+        this.databaseThreads = databaseThreads;
+    }
+
+    /**
+     * Service calls waiting for a database thread; beyond this the calling handler runs
+     * the call itself.
+     */
+    public int getDatabaseQueue() {
+        return databaseQueue;
+    }
+
+    public void setDatabaseQueue(int databaseQueue) {
+        this.databaseQueue = databaseQueue;
+    }
+
+    /**
+     * Threads delivering change events to subscribed connections.
+     */
+    public int getPushThreads() {
+        return pushThreads;
+    }
+
+    public void setPushThreads(int pushThreads) {
+        this.pushThreads = pushThreads;
+    }
+
+    @Override
+    public String toString() {
+        return "ServerExecutorsConfig{" +
+                "maxConnections=" + maxConnections +
+                ", dispatchThreads=" + dispatchThreads +
+                ", dispatchQueue=" + dispatchQueue +
+                ", databaseThreads=" + databaseThreads +
+                ", databaseQueue=" + databaseQueue +
+                ", pushThreads=" + pushThreads +
+                '}';
+    }
+}
@@ -31,7 +31,7 @@ public class ClientDBRepository implements Repository<Long, Client> {
 
         String query = "SELECT * FROM clients WHERE id =?";
         try(Connection conn = dataSource.getConnection();
-            PreparedStatement statement = conn.prepareStatement(query);
+            PreparedStatement statement = Statements.prepare(conn, query);
         ) {
             statement.setLong(1, id);
             ResultSet resultSet = statement.executeQuery();
@@ -55,7 +55,7 @@ public class ClientDBRepository implements Repository<Long, Client> {
 
         String query = "SELECT * FROM clients";
         try(Connection conn = dataSource.getConnection();
-            PreparedStatement statement = conn.prepareStatement(query);
+            PreparedStatement statement = Statements.prepare(conn, query);
             ResultSet resultSet = statement.executeQuery();)
          {
             while (resultSet.next()) {
@@ -88,7 +88,7 @@ public class ClientDBRepository implements Repository<Long, Client> {
                 "(?,?,?,?,?)";
 
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement statement = conn.prepareStatement(sqlQuery)) {
+             PreparedStatement statement = Statements.prepare(conn, sqlQuery)) {
             statement.setString(1, client.getFirstName());
             statement.setString(2, client.getLastName());
             statement.setString(3, client.getDateOfBirth());
@@ -112,7 +112,7 @@ public class ClientDBRepository implements Repository<Long, Client> {
         validator.validate(client);
             try (
                 Connection conn = dataSource.getConnection();
-                PreparedStatement statement = conn.prepareStatement(sqlString);
+                PreparedStatement statement = Statements.prepare(conn, sqlString);
             ) {
                 statement.setString(1, client.getFirstName());
                 statement.setString(2, client.getLastName());
@@ -138,7 +138,7 @@ public class ClientDBRepository implements Repository<Long, Client> {
         if (clientToDelete.isPresent()) {
             String sqlString = "DELETE FROM clients WHERE id  = ?";
             try(Connection conn = dataSource.getConnection();
-                PreparedStatement statement = conn.prepareStatement(sqlString);
+                PreparedStatement statement = Statements.prepare(conn, sqlString);
             ){
                 statement.setLong(1, id);
                 statement.executeUpdate();
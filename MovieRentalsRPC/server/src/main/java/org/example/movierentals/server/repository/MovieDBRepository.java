@@ -15,8 +15,10 @@ import java.sql.SQLException;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public class MovieDBRepository implements Repository<Long, Movie> {
+    private static final int FETCH_SIZE = 500;
     private ElephantSQLDataSource dataSource = new ElephantSQLDataSource();
     private Validator<Movie> validator = new MovieValidator();
 
@@ -34,7 +36,7 @@ public class MovieDBRepository implements Repository<Long, Movie> {
 
         String query = "SELECT * FROM movies WHERE id = ?";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement statement = conn.prepareStatement(query);
+             PreparedStatement statement = Statements.prepare(conn, query);
         ) {
             statement.setLong(1, id);
             ResultSet resultSet = statement.executeQuery();
@@ -59,7 +61,7 @@ public class MovieDBRepository implements Repository<Long, Movie> {
 
         String query = "SELECT * FROM movies";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement statement = conn.prepareStatement(query);
+             PreparedStatement statement = Statements.prepare(conn, query);
              ResultSet resultSet = statement.executeQuery();
         ) {
             while (resultSet.next()) {
@@ -77,6 +79,36 @@ public class MovieDBRepository implements Repository<Long, Movie> {
         return movies;
     }
 
+    /**
+     * Passes every movie to {@code action} as its row is read. The rows are fetched from
+     * the database in batches of {@link #FETCH_SIZE}, so the table is never held in memory.
+     */
+    public void streamAll(Consumer<Movie> action) {
+        String query = "SELECT * FROM movies";
+        try (Connection conn = dataSource.getConnection()) {
+            // the driver only uses a cursor inside a transaction
+            conn.setAutoCommit(false);
+            try (PreparedStatement statement = Statements.prepare(conn, query)) {
+                statement.setFetchSize(FETCH_SIZE);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        Movie movie = new Movie();
+                        try {
+                            setFieldsOnMovie(resultSet, movie);
+                        } catch (ValidatorException e){
+                            throw new MovieRentalsException(e);
+                        }
+                        action.accept(movie);
+                    }
+                }
+            } finally {
+                conn.rollback();
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+    }
+
     private void setFieldsOnMovie(ResultSet resultSet, Movie movie) throws SQLException {
         Long resultId = resultSet.getLong("id");
         movie.setId(resultId);
@@ -123,7 +155,7 @@ public class MovieDBRepository implements Repository<Long, Movie> {
                 "title, year, genre, age_restriction, rental_price, available) " +
                 "values (?, ?, ?, ?, ?, ?)";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement statement = conn.prepareStatement(sqlString)) {
+             PreparedStatement statement = Statements.prepare(conn, sqlString)) {
             statement.setString(1, movie.getTitle());
             statement.setInt(2, movie.getYear());
             statement.setString(3, String.valueOf(movie.getGenre()));
@@ -151,7 +183,7 @@ public class MovieDBRepository implements Repository<Long, Movie> {
         validator.validate(movie);
 
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement statement = conn.prepareStatement(sqlString);
+             PreparedStatement statement = Statements.prepare(conn, sqlString);
         ) {
             statement.setString(1, movie.getTitle());
             statement.setInt(2, movie.getYear());
@@ -179,7 +211,7 @@ public class MovieDBRepository implements Repository<Long, Movie> {
         if (movieToDelete.isPresent()) {
             String sqlString = "DELETE FROM movies WHERE id = ?";
             try (Connection conn = dataSource.getConnection();
-                 PreparedStatement statement = conn.prepareStatement(sqlString);
+                 PreparedStatement statement = Statements.prepare(conn, sqlString);
             ) {
                 statement.setLong(1, id);
                 statement.executeUpdate();
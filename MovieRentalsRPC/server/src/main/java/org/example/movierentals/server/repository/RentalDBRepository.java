@@ -10,8 +10,10 @@ import java.sql.*;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public class RentalDBRepository implements Repository<Long, Rental> {
+    private static final int FETCH_SIZE = 500;
     private ElephantSQLDataSource dataSource = new ElephantSQLDataSource();
     private Validator<Rental> validator = new RentalValidator();
 
@@ -24,7 +26,7 @@ public class RentalDBRepository implements Repository<Long, Rental> {
 
         String query = "SELECT * FROM rentals WHERE id=?";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)
+             PreparedStatement stmt = Statements.prepare(conn, query)
         ) {
             stmt.setLong(1, id);
             ResultSet resultSet = stmt.executeQuery();
@@ -66,42 +68,70 @@ public class RentalDBRepository implements Repository<Long, Rental> {
         Set<Rental> rentals = new HashSet<>();
         String query = "SELECT * FROM rentals";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query);
+             PreparedStatement stmt = Statements.prepare(conn, query);
         ) {
             ResultSet resultSet = stmt.executeQuery();
 
             while (resultSet.next()) {
-                Rental rental = new Rental();
+                rentals.add(readRental(resultSet));
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connexion exception. " + e.getMessage());
+        }
+        return rentals;
+    }
 
-                Long resultId = resultSet.getLong("id");
-                rental.setId(resultId);
+    /**
+     * Passes every rental to {@code action} as its row is read. The rows are fetched from
+     * the database in batches of {@link #FETCH_SIZE}, so the table is never held in memory.
+     */
+    public void streamAll(Consumer<Rental> action) {
+        String query = "SELECT * FROM rentals";
+        try (Connection conn = dataSource.getConnection()) {
+            // the driver only uses a cursor inside a transaction
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = Statements.prepare(conn, query)) {
+                stmt.setFetchSize(FETCH_SIZE);
+                try (ResultSet resultSet = stmt.executeQuery()) {
+                    while (resultSet.next()) {
+                        action.accept(readRental(resultSet));
+                    }
+                }
+            } finally {
+                conn.rollback();
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connexion exception. " + e.getMessage());
+        }
+    }
 
-                Long movieId = resultSet.getLong("movie_id");
-                rental.setMovieId(movieId);
+    private Rental readRental(ResultSet resultSet) throws SQLException {
+        Rental rental = new Rental();
 
-                Long clientId = resultSet.getLong("client_id");
-                rental.setClientId(clientId);
+        Long resultId = resultSet.getLong("id");
+        rental.setId(resultId);
 
-                float rentalCharge = resultSet.getFloat("rental_charge");
-                rental.setRentalCharge(rentalCharge);
+        Long movieId = resultSet.getLong("movie_id");
+        rental.setMovieId(movieId);
 
-                Timestamp rentalDate = resultSet.getTimestamp("rental_date");
-                rental.setRentalDate(rentalDate.toLocalDateTime());
+        Long clientId = resultSet.getLong("client_id");
+        rental.setClientId(clientId);
 
-                Timestamp dueDate = resultSet.getTimestamp("due_date");
-                rental.setDueDate(dueDate.toLocalDateTime());
+        float rentalCharge = resultSet.getFloat("rental_charge");
+        rental.setRentalCharge(rentalCharge);
 
-                try {
-                    validator.validate(rental);
-                    rentals.add(rental);
-                } catch (ValidatorException ve) {
-                    throw new MovieRentalsException("Rental transaction is not valid. " + ve.getMessage());
-                }
-            }
-        } catch (SQLException e) {
-            throw new MovieRentalsException("Database connexion exception. " + e.getMessage());
+        Timestamp rentalDate = resultSet.getTimestamp("rental_date");
+        rental.setRentalDate(rentalDate.toLocalDateTime());
+
+        Timestamp dueDate = resultSet.getTimestamp("due_date");
+        rental.setDueDate(dueDate.toLocalDateTime());
+
+        try {
+            validator.validate(rental);
+            return rental;
+        } catch (ValidatorException ve) {
+            throw new MovieRentalsException("Rental transaction is not valid. " + ve.getMessage());
         }
-        return rentals;
     }
 
     @Override
@@ -118,7 +148,7 @@ public class RentalDBRepository implements Repository<Long, Rental> {
                 "movie_id, client_id, rental_charge, rental_date, due_date) " +
                 "values (?, ?, ?, ?, ?)";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement statement = conn.prepareStatement(sqlString)) {
+             PreparedStatement statement = Statements.prepare(conn, sqlString)) {
             statement.setLong(1, rental.getMovieId());
             statement.setLong(2, rental.getClientId());
             statement.setFloat(3, rental.getRentalCharge());
@@ -142,7 +172,7 @@ public class RentalDBRepository implements Repository<Long, Rental> {
 
             String sqlString = "DELETE FROM rentals WHERE id = ?";
             try (Connection conn = dataSource.getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(sqlString);
+                 PreparedStatement stmt = Statements.prepare(conn, sqlString);
             ) {
                 stmt.setLong(1, id);
                 stmt.executeUpdate();
@@ -166,7 +196,7 @@ public class RentalDBRepository implements Repository<Long, Rental> {
                 "WHERE id= ?";
 
         try(Connection conn = dataSource.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sqlString);
+            PreparedStatement stmt = Statements.prepare(conn, sqlString);
         ) {
             stmt.setLong(1, rental.getMovieId());
             stmt.setLong(2, rental.getClientId());
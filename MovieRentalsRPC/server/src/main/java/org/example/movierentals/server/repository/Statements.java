@@ -0,0 +1,29 @@
+package org.example.movierentals.server.repository;
+
+import org.example.movierentals.server.RequestDeadline;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+
+/**
+ * Prepares statements bounded by the deadline of the request being served.
+ */
+final class Statements {
+
+    private Statements() {
+    }
+
+    /**
+     * @throws SQLTimeoutException if the request has already run out of time.
+     */
+    static PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        if (RequestDeadline.isExpired()) {
+            throw new SQLTimeoutException("Request deadline exceeded before the query was sent.");
+        }
+        PreparedStatement statement = conn.prepareStatement(sql);
+        statement.setQueryTimeout(RequestDeadline.queryTimeoutSeconds());
+        return statement;
+    }
+}
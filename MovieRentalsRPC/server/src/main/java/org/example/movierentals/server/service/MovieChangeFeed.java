@@ -0,0 +1,161 @@
+package org.example.movierentals.server.service;
+
+import org.example.movierentals.common.domain.Movie;
+import org.example.movierentals.common.domain.MovieChange;
+import org.example.movierentals.common.domain.exceptions.MovieRentalsException;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Pushes an event to every subscriber whenever a movie changes, so terminals that watch
+ * which titles are available need not poll the whole table.
+ * <p>
+ * Publishing never waits for a subscriber: each one has its own queue, drained on the
+ * delivery executor. A subscriber more than {@link #MAX_PENDING_EVENTS} events behind
+ * is dropped and has to subscribe again and reload the movies it shows.
+ */
+public class MovieChangeFeed {
+    public static final int MAX_PENDING_EVENTS = 1024;
+
+    private final Executor deliveryExecutor;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    public MovieChangeFeed(Executor deliveryExecutor) {
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /**
+     * @return a future that fails when the subscriber is dropped; cancel it to unsubscribe.
+     */
+    public CompletableFuture<Void> subscribe(Consumer<MovieChange> listener) {
+        Subscriber subscriber = new Subscriber(listener);
+        subscribers.add(subscriber);
+        subscriber.ended.whenComplete((ignored, error) -> subscribers.remove(subscriber));
+        if (closed) {
+            subscriber.end(shuttingDown());
+        }
+        return subscriber.ended;
+    }
+
+    /**
+     * Ends every subscription and refuses new ones, so that a stopping server need not
+     * wait for subscribers to leave.
+     */
+    public void close() {
+        closed = true;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.end(shuttingDown());
+        }
+    }
+
+    /**
+     * @return the number of subscriptions that have not ended yet.
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private static MovieRentalsException shuttingDown() {
+        return new MovieRentalsException("Server is shutting down.");
+    }
+
+    public void movieAdded(Movie movie) {
+        publish(new MovieChange(MovieChange.Kind.ADDED, movie.getId(), movie));
+    }
+
+    public void movieUpdated(Movie movie) {
+        publish(new MovieChange(MovieChange.Kind.UPDATED, movie.getId(), movie));
+    }
+
+    public void movieDeleted(Long id) {
+        publish(new MovieChange(MovieChange.Kind.DELETED, id, null));
+    }
+
+    /**
+     * A rental of the movie was made, changed or removed.
+     */
+    public void movieRentalsChanged(Long movieId) {
+        publish(new MovieChange(MovieChange.Kind.RENTALS_CHANGED, movieId, null));
+    }
+
+    private void publish(MovieChange event) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    private class Subscriber {
+        private final Consumer<MovieChange> listener;
+        private final Queue<MovieChange> pending = new ArrayDeque<>();
+        private final CompletableFuture<Void> ended = new CompletableFuture<>();
+        private boolean draining;
+
+        Subscriber(Consumer<MovieChange> listener) {
+            this.listener = listener;
+        }
+
+        void offer(MovieChange event) {
+            boolean fellBehind = false;
+            synchronized (this) {
+                if (ended.isDone()) {
+                    return;
+                }
+                if (pending.size() >= MAX_PENDING_EVENTS) {
+                    fellBehind = true;
+                } else {
+                    pending.add(event);
+                    if (draining) {
+                        return;
+                    }
+                    draining = true;
+                }
+            }
+            if (fellBehind) {
+                end(new MovieRentalsException("Subscriber fell more than " + MAX_PENDING_EVENTS + " changes behind."));
+                return;
+            }
+            try {
+                deliveryExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                end(e);
+            }
+        }
+
+        /**
+         * Hands the queued events to the listener one by one; a listener that throws,
+         * e.g. because its connection is gone, ends the subscription.
+         */
+        private void drain() {
+            while (true) {
+                MovieChange event;
+                synchronized (this) {
+                    event = ended.isDone() ? null : pending.poll();
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    end(e);
+                }
+            }
+        }
+
+        private void end(Throwable cause) {
+            synchronized (this) {
+                pending.clear();
+            }
+            ended.completeExceptionally(cause);
+        }
+    }
+}
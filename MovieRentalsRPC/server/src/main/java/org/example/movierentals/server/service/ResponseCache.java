@@ -0,0 +1,210 @@
+package org.example.movierentals.server.service;
+
+import org.example.movierentals.common.Message;
+import org.example.movierentals.common.Operation;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Successful responses of full-table listings, keyed by operation and the encoded body of
+ * the request and kept as their encoded body bytes, so a repeated listing costs a map
+ * lookup and a copy into the frame instead of a table scan and serialization.
+ * <p>
+ * The handlers that change a table invalidate the listings of that table once their
+ * change is done. A listing loaded while a change was in progress is not cached, since
+ * it may have been read before the change. Entries are evicted least recently used
+ * first once the entry or byte limit is reached, and expire after the time-to-live in
+ * case the database is changed from elsewhere.
+ */
+public class ResponseCache {
+    private static final String OK = "200 OK";
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long[] generations = new long[Operation.maxOpcode() + 1];
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public ResponseCache(int maxEntries, long maxBytes, Duration ttl) {
+        if (maxEntries < 0 || maxBytes < 0 || ttl.isNegative()) {
+            throw new IllegalArgumentException("Response cache needs maxEntries, maxBytes and ttl >= 0.");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Reads {@code server.responseCache.maxEntries}, {@code .maxBytes} and {@code .ttlMillis},
+     * falling back to the given values. A limit of 0 disables the cache.
+     */
+    public static ResponseCache fromSystemProperties(int maxEntries, long maxBytes, Duration ttl) {
+        return new ResponseCache(
+                Integer.getInteger("server.responseCache.maxEntries", maxEntries),
+                Long.getLong("server.responseCache.maxBytes", maxBytes),
+                Duration.ofMillis(Long.getLong("server.responseCache.ttlMillis", ttl.toMillis())));
+    }
+
+    /**
+     * Answers from the cache, or runs the loader and caches its response if it is a
+     * success. Every hit gets a message of its own over the shared body bytes.
+     *
+     * @param arguments the encoded body of the request, which tells its arguments apart
+     *                  without decoding them; it must not be changed afterwards.
+     */
+    public CompletionStage<Message> getOrLoad(Operation operation, byte[] arguments,
+                                              Supplier<? extends CompletionStage<Message>> loader) {
+        Key key = new Key(operation, arguments == null ? new byte[0] : arguments);
+        long generation;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.expiresAt < 0) {
+                hits++;
+                return CompletableFuture.completedFuture(Message.withEncodedBody(entry.header, entry.body));
+            }
+            if (entry != null) {
+                remove(key, entry);
+            }
+            misses++;
+            generation = generations[operation.getOpcode()];
+        }
+        return loader.get().thenApply(response -> {
+            byte[] body = response.getEncodedBody();
+            if (response.getHeader() != null && response.getHeader().startsWith(OK) && body != null) {
+                put(key, generation, response.getHeader(), body);
+            }
+            return response;
+        });
+    }
+
+    private synchronized void put(Key key, long generation, String header, byte[] body) {
+        if (generation != generations[key.operation.getOpcode()] || body.length > maxBytes || maxEntries == 0) {
+            return;
+        }
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            bytes -= previous.body.length;
+        }
+        entries.put(key, new Entry(header, body, System.nanoTime() + ttlNanos));
+        bytes += body.length;
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            bytes -= evicted.getValue().body.length;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        bytes -= entry.body.length;
+    }
+
+    /**
+     * Drops every cached response of the given operations, and keeps responses that are
+     * being loaded right now out of the cache.
+     */
+    public synchronized void invalidate(Operation... operations) {
+        for (Operation operation : operations) {
+            generations[operation.getOpcode()]++;
+        }
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> cached = iterator.next();
+            for (Operation operation : operations) {
+                if (cached.getKey().operation == operation) {
+                    bytes -= cached.getValue().body.length;
+                    iterator.remove();
+                    invalidations++;
+                    break;
+                }
+            }
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * The size of the cached bodies in bytes.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResponseCache{" +
+                "maxEntries=" + maxEntries +
+                ", maxBytes=" + maxBytes +
+                ", ttl=" + Duration.ofNanos(ttlNanos) +
+                ", entries=" + entries.size() +
+                ", bytes=" + bytes +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", invalidations=" + invalidations +
+                '}';
+    }
+
+    private static class Key {
+        private final Operation operation;
+        private final byte[] arguments;
+
+        Key(Operation operation, byte[] arguments) {
+            this.operation = operation;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return operation == key.operation && Arrays.equals(arguments, key.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * operation.hashCode() + Arrays.hashCode(arguments);
+        }
+    }
+
+    private static class Entry {
+        private final String header;
+        private final byte[] body;
+        private final long expiresAt;
+
+        Entry(String header, byte[] body, long expiresAt) {
+            this.header = header;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.movierentals.server.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Collects rows and passes them on in chunks of at most {@link #CHUNK_ROWS}, so a listing
+ * is never held as one list.
+ */
+class RowChunker<T> {
+    static final int CHUNK_ROWS = 512;
+
+    private final Consumer<List<T>> chunks;
+    private List<T> chunk = new ArrayList<>(CHUNK_ROWS);
+    private int rows;
+
+    RowChunker(Consumer<List<T>> chunks) {
+        this.chunks = chunks;
+    }
+
+    void add(T row) {
+        chunk.add(row);
+        rows++;
+        if (chunk.size() >= CHUNK_ROWS) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends the rows still buffered.
+     *
+     * @return the number of rows sent in total.
+     */
+    int finish() {
+        if (!chunk.isEmpty()) {
+            flush();
+        }
+        return rows;
+    }
+
+    private void flush() {
+        chunks.accept(chunk);
+        chunk = new ArrayList<>(CHUNK_ROWS);
+    }
+}
@@ -2,139 +2,106 @@ package org.example.movierentals.server.service;
 
 import org.example.movierentals.common.IClientService;
 import org.example.movierentals.common.domain.Client;
+import org.example.movierentals.common.domain.exceptions.MovieRentalsException;
 import org.example.movierentals.server.repository.ClientDBRepository;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 public class SClientServiceImpl implements IClientService {
-    public static final String ERROR = "400 Error";
     private ClientDBRepository clientRepository;
     private ExecutorService executorService;
+    private SingleFlight reads;
 
-    public SClientServiceImpl(ExecutorService executorService, ClientDBRepository clientRepository) {
+    public SClientServiceImpl(ExecutorService executorService, ClientDBRepository clientRepository, SingleFlight reads) {
         this.executorService = executorService;
         this.clientRepository = clientRepository;
+        this.reads = reads;
     }
 
     @Override
-    public Future<String> getAllClients() {
-        Iterable<Client> clients = clientRepository.findAll();
-        if (StreamSupport.stream(clients.spliterator(), false).findAny().isPresent()) {
-            StringBuilder sb = new StringBuilder();
-            for (Client client : clients) {
-                sb.append(client.getId()).append(",")
-                        .append(client.getFirstName()).append(",")
-                        .append(client.getLastName()).append(",")
-                        .append(client.getDateOfBirth()).append(",")
-                        .append(client.getEmail()).append(",")
-                        .append(client.isSubscribe()).append(";");
+    public CompletableFuture<List<Client>> getAllClients() {
+        return reads.run("getAllClients", () -> CompletableFuture.supplyAsync(() -> {
+            Iterable<Client> clients = clientRepository.findAll();
+            if (StreamSupport.stream(clients.spliterator(), false).findAny().isPresent()) {
+                List<Client> result = new ArrayList<>();
+                clients.forEach(result::add);
+                return result;
+            } else {
+                throw new MovieRentalsException("Client not found.");
             }
-            return executorService.submit(() -> sb.toString());
-        } else {
-            return executorService.submit(() -> ERROR);
-        }
+        }, executorService));
     }
 
     @Override
-    public Future<String> addClient(Client client) {
-        Optional<Client> savedClient = clientRepository.save(client);
-        if (savedClient.isPresent()) {
-            Client responseClient = savedClient.get();
-            StringBuilder sb = new StringBuilder();
-            sb.append(responseClient.getFirstName()).append(",")
-                    .append(responseClient.getLastName()).append(",")
-                    .append(responseClient.getDateOfBirth()).append(",")
-                    .append(responseClient.getEmail()).append(",")
-                    .append(responseClient.isSubscribe());
-            return executorService.submit(() -> sb.toString());
-        }
-        return executorService.submit(() -> ERROR);
+    public CompletableFuture<Client> addClient(Client client) {
+        return CompletableFuture.supplyAsync(() -> {
+            Optional<Client> savedClient = clientRepository.save(client);
+            if (savedClient.isPresent()) {
+                return savedClient.get();
+            }
+            throw new MovieRentalsException("Client not found.");
+        }, executorService).whenComplete((result, error) -> reads.forgetAll());
     }
 
     @Override
-    public Future<String> getClientById(Long id) {
-        Optional<Client> clientOptional = clientRepository.findOne(id);
-        StringBuilder sb = new StringBuilder();
-        if (clientOptional.isPresent()) {
-            Client responseClient = clientOptional.get();
-            sb.append(responseClient.getId()).append(",")
-                    .append(responseClient.getFirstName()).append(",")
-                    .append(responseClient.getLastName()).append(",")
-                    .append(responseClient.getDateOfBirth()).append(",")
-                    .append(responseClient.getEmail()).append(",")
-                    .append(responseClient.isSubscribe());
-            return executorService.submit(() -> sb.toString());
-        }
-        return executorService.submit(() -> ERROR);
+    public CompletableFuture<Client> getClientById(Long id) {
+        return reads.run("getClientById:" + id, () -> CompletableFuture.supplyAsync(() -> {
+            Optional<Client> clientOptional = clientRepository.findOne(id);
+            if (clientOptional.isPresent()) {
+                return clientOptional.get();
+            }
+            throw new MovieRentalsException("Client not found.");
+        }, executorService));
     }
 
     @Override
-    public Future<String> updateClient(Client client) {
-        if (clientRepository.findOne(client.getId()).isPresent()) {
-            Optional<Client> clientOptional = clientRepository.update(client);
-            StringBuilder sb = new StringBuilder();
-            if (clientOptional.isPresent()) {
-                Client responseClient = clientOptional.get();
-                sb.append(responseClient.getId()).append(",")
-                        .append(responseClient.getFirstName()).append(",")
-                        .append(responseClient.getLastName()).append(",")
-                        .append(responseClient.getDateOfBirth()).append(",")
-                        .append(responseClient.getEmail()).append(",")
-                        .append(responseClient.isSubscribe());
-                return executorService.submit(() -> sb.toString());
+    public CompletableFuture<Client> updateClient(Client client) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (clientRepository.findOne(client.getId()).isPresent()) {
+                Optional<Client> clientOptional = clientRepository.update(client);
+                if (clientOptional.isPresent()) {
+                    return clientOptional.get();
+                }
+                throw new MovieRentalsException("Client not found.");
+            } else {
+                throw new MovieRentalsException("Client not found.");
             }
-            return executorService.submit(() -> ERROR);
-        } else {
-            return executorService.submit(() -> ERROR);
-        }
+        }, executorService).whenComplete((result, error) -> reads.forgetAll());
     }
 
     @Override
-    public Future<String> deleteClientById(Long id) {
-        Optional<Client> clientOptional = clientRepository.delete(id);
-        StringBuilder sb = new StringBuilder();
-        if (clientOptional.isPresent()) {
-            Client deletedClient = clientOptional.get();
-            sb.append(deletedClient.getId()).append(",")
-                    .append(deletedClient.getFirstName()).append(",")
-                    .append(deletedClient.getLastName()).append(",")
-                    .append(deletedClient.getDateOfBirth()).append(",")
-                    .append(deletedClient.getEmail()).append(",")
-                    .append(deletedClient.isSubscribe());
-            return executorService.submit(() -> sb.toString());
-        }
-        return executorService.submit(() -> ERROR);
+    public CompletableFuture<Client> deleteClientById(Long id) {
+        return CompletableFuture.supplyAsync(() -> {
+            Optional<Client> clientOptional = clientRepository.delete(id);
+            if (clientOptional.isPresent()) {
+                return clientOptional.get();
+            }
+            throw new MovieRentalsException("Client not found.");
+        }, executorService).whenComplete((result, error) -> reads.forgetAll());
     }
 
     @Override
-    public Future<String> filterClientsByKeyword(String keyword) {
-        Iterable<Client> clientsSet = clientRepository.findAll();
-        StringBuilder sb = new StringBuilder();
-        if (StreamSupport.stream(clientsSet.spliterator(), false).findAny().isPresent()) {
-            Set<Client> filteredClients = StreamSupport.stream(clientsSet.spliterator(), false)
-                    .filter(c -> c.getFirstName().toLowerCase().contains(keyword.toLowerCase()) ||
-                            c.getLastName().toLowerCase().contains(keyword.toLowerCase()))
-                    .collect(Collectors.toSet());
-            if (!filteredClients.isEmpty()) {
-                filteredClients.forEach(c -> {
-                    sb.append(c.getId()).append(",")
-                            .append(c.getFirstName()).append(",")
-                            .append(c.getLastName()).append(",")
-                            .append(c.getDateOfBirth()).append(",")
-                            .append(c.getEmail()).append(",")
-                            .append(c.isSubscribe()).append(";");
-                });
+    public CompletableFuture<List<Client>> filterClientsByKeyword(String keyword) {
+        return reads.run("filterClientsByKeyword:" + keyword, () -> CompletableFuture.supplyAsync(() -> {
+            Iterable<Client> clientsSet = clientRepository.findAll();
+            if (StreamSupport.stream(clientsSet.spliterator(), false).findAny().isPresent()) {
+                List<Client> filteredClients = StreamSupport.stream(clientsSet.spliterator(), false)
+                        .filter(c -> c.getFirstName().toLowerCase().contains(keyword.toLowerCase()) ||
+                                c.getLastName().toLowerCase().contains(keyword.toLowerCase()))
+                        .collect(Collectors.toList());
+                if (filteredClients.isEmpty()) {
+                    throw new MovieRentalsException("Client not found.");
+                }
+                return filteredClients;
             } else {
-                sb.append(ERROR);
+                throw new MovieRentalsException("Client not found.");
             }
-            return executorService.submit(() -> sb.toString());
-        } else {
-            return executorService.submit(() -> ERROR);
-        }
+        }, executorService));
     }
 }
@@ -2,147 +2,132 @@ package org.example.movierentals.server.service;
 
 import org.example.movierentals.common.IMovieService;
 import org.example.movierentals.common.domain.Movie;
+import org.example.movierentals.common.domain.MovieChange;
+import org.example.movierentals.common.domain.exceptions.MovieRentalsException;
 import org.example.movierentals.server.repository.MovieDBRepository;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 public class SMovieServiceImpl implements IMovieService {
-    public static final String ERROR = "400 Error";
     private MovieDBRepository movieRepository;
     private ExecutorService executorService;
+    private MovieChangeFeed changeFeed;
+    private SingleFlight reads;
 
-    public SMovieServiceImpl(ExecutorService executorService, MovieDBRepository movieRepository) {
+    public SMovieServiceImpl(ExecutorService executorService, MovieDBRepository movieRepository, MovieChangeFeed changeFeed,
+                             SingleFlight reads) {
         this.executorService = executorService;
         this.movieRepository = movieRepository;
+        this.changeFeed = changeFeed;
+        this.reads = reads;
     }
 
     @Override
-    public Future<String> getAllMovies() {
-        Iterable<Movie> movies = movieRepository.findAll();
-        if (StreamSupport.stream(movies.spliterator(), false).findAny().isPresent()) {
-            StringBuilder sb = new StringBuilder();
-            for (Movie movie : movies) {
-                sb.append(movie.getId()).append(",")
-                        .append(movie.getTitle()).append(",")
-                        .append(movie.getYear()).append(",")
-                        .append(movie.getGenre()).append(",")
-                        .append(movie.getAgeRestrictions()).append(",")
-                        .append(movie.getRentalPrice()).append(",")
-                        .append(movie.isAvailable()).append(";");
+    public CompletableFuture<List<Movie>> getAllMovies() {
+        return reads.run("getAllMovies", () -> CompletableFuture.supplyAsync(() -> {
+            Iterable<Movie> movies = movieRepository.findAll();
+            if (StreamSupport.stream(movies.spliterator(), false).findAny().isPresent()) {
+                List<Movie> result = new ArrayList<>();
+                movies.forEach(result::add);
+                return result;
+            } else {
+                throw new MovieRentalsException("Movie not found.");
             }
-            return executorService.submit(() -> sb.toString());
-        } else {
-            return executorService.submit(() -> ERROR);
-        }
+        }, executorService));
     }
 
     @Override
-    public Future<String> addMovie(Movie movie) {
-        Optional<Movie> savedMovie = movieRepository.save(movie);
-        if (savedMovie.isPresent()) {
-            Movie responseMovie = savedMovie.get();
-            StringBuilder sb = new StringBuilder();
-            sb.append(responseMovie.getId()).append(",")
-                    .append(responseMovie.getTitle()).append(",")
-                    .append(responseMovie.getYear()).append(",")
-                    .append(responseMovie.getGenre()).append(",")
-                    .append(responseMovie.getAgeRestrictions()).append(",")
-                    .append(responseMovie.getRentalPrice()).append(",")
-                    .append(responseMovie.isAvailable());
-            return executorService.submit(() -> sb.toString());
-        }
-        return executorService.submit(() -> ERROR);
+    public CompletableFuture<Integer> streamAllMovies(Consumer<List<Movie>> chunks) {
+        return CompletableFuture.supplyAsync(() -> {
+            RowChunker<Movie> chunker = new RowChunker<>(chunks);
+            movieRepository.streamAll(chunker::add);
+            return chunker.finish();
+        }, executorService);
     }
 
     @Override
-    public Future<String> getMovieById(Long id) {
-        Optional<Movie> movieOptional = movieRepository.findOne(id);
-        if (movieOptional.isPresent()) {
-            Movie movie = movieOptional.get();
-            StringBuilder sb = new StringBuilder();
-            sb.append(movie.getId()).append(",")
-                    .append(movie.getTitle()).append(",")
-                    .append(movie.getYear()).append(",")
-                    .append(movie.getGenre()).append(",")
-                    .append(movie.getAgeRestrictions()).append(",")
-                    .append(movie.getRentalPrice()).append(",")
-                    .append(movie.isAvailable());
-            return executorService.submit(() -> sb.toString());
-        } else {
-            return executorService.submit(() -> ERROR);
-        }
+    public CompletableFuture<Movie> addMovie(Movie movie) {
+        return CompletableFuture.supplyAsync(() -> {
+            Optional<Movie> savedMovie = movieRepository.save(movie);
+            if (savedMovie.isPresent()) {
+                Movie responseMovie = savedMovie.get();
+                changeFeed.movieAdded(responseMovie);
+                return responseMovie;
+            }
+            throw new MovieRentalsException("Movie not found.");
+        }, executorService).whenComplete((result, error) -> reads.forgetAll());
     }
 
     @Override
-    public Future<String> updateMovie(Movie movie) {
-        if (movieRepository.findOne(movie.getId()).isPresent()) {
-            Optional<Movie> updatedMovie = movieRepository.update(movie);
-            if (updatedMovie.isPresent()) {
-                Movie responseMovie = updatedMovie.get();
-                StringBuilder sb = new StringBuilder();
-                sb.append(responseMovie.getId()).append(",")
-                        .append(responseMovie.getTitle()).append(",")
-                        .append(responseMovie.getYear()).append(",")
-                        .append(responseMovie.getGenre()).append(",")
-                        .append(responseMovie.getAgeRestrictions()).append(",")
-                        .append(responseMovie.getRentalPrice()).append(",")
-                        .append(responseMovie.isAvailable());
-                return executorService.submit(() -> sb.toString());
+    public CompletableFuture<Movie> getMovieById(Long id) {
+        return reads.run("getMovieById:" + id, () -> CompletableFuture.supplyAsync(() -> {
+            Optional<Movie> movieOptional = movieRepository.findOne(id);
+            if (movieOptional.isPresent()) {
+                return movieOptional.get();
+            } else {
+                throw new MovieRentalsException("Movie not found.");
             }
-            return executorService.submit(() -> ERROR);
-        } else {
-            return executorService.submit(() -> ERROR);
-        }
+        }, executorService));
     }
 
     @Override
-    public Future<String> deleteMovieById(Long id) {
-        Optional<Movie> movieOptional = movieRepository.delete(id);
-        if (movieOptional.isPresent()) {
-            Movie responseMovie = movieOptional.get();
-            StringBuilder sb = new StringBuilder();
-            sb.append(responseMovie.getId()).append(",")
-                    .append(responseMovie.getTitle()).append(",")
-                    .append(responseMovie.getYear()).append(",")
-                    .append(responseMovie.getGenre()).append(",")
-                    .append(responseMovie.getAgeRestrictions()).append(",")
-                    .append(responseMovie.getRentalPrice()).append(",")
-                    .append(responseMovie.isAvailable());
-            return executorService.submit(() -> sb.toString());
-        } else {
-            return executorService.submit(() -> ERROR);
-        }
+    public CompletableFuture<Movie> updateMovie(Movie movie) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (movieRepository.findOne(movie.getId()).isPresent()) {
+                Optional<Movie> updatedMovie = movieRepository.update(movie);
+                if (updatedMovie.isPresent()) {
+                    Movie responseMovie = updatedMovie.get();
+                    changeFeed.movieUpdated(responseMovie);
+                    return responseMovie;
+                }
+                throw new MovieRentalsException("Movie not found.");
+            } else {
+                throw new MovieRentalsException("Movie not found.");
+            }
+        }, executorService).whenComplete((result, error) -> reads.forgetAll());
     }
 
     @Override
-    public Future<String> filterMoviesByKeyword(String keyword) {
-        Iterable<Movie> moviesSet = movieRepository.findAll();
-        StringBuilder sb = new StringBuilder();
-        if (StreamSupport.stream(moviesSet.spliterator(), false).findAny().isPresent()) {
-            Set<Movie> filteredMovies = StreamSupport.stream(moviesSet.spliterator(), false)
-                    .filter(m -> m.getTitle().toLowerCase().contains(keyword.toLowerCase()))
-                    .collect(Collectors.toSet());
-            if (!filteredMovies.isEmpty()) {
-                filteredMovies.forEach(m -> {
-                    sb.append(m.getId()).append(",")
-                            .append(m.getTitle()).append(",")
-                            .append(m.getYear()).append(",")
-                            .append(m.getGenre()).append(",")
-                            .append(m.getAgeRestrictions()).append(",")
-                            .append(m.getRentalPrice()).append(",")
-                            .append(m.isAvailable()).append(";");
-                });
+    public CompletableFuture<Movie> deleteMovieById(Long id) {
+        return CompletableFuture.supplyAsync(() -> {
+            Optional<Movie> movieOptional = movieRepository.delete(id);
+            if (movieOptional.isPresent()) {
+                Movie responseMovie = movieOptional.get();
+                changeFeed.movieDeleted(id);
+                return responseMovie;
             } else {
-                sb.append(ERROR);
+                throw new MovieRentalsException("Movie not found.");
             }
-            return executorService.submit(() -> sb.toString());
-        } else {
-            return executorService.submit(() -> ERROR);
-        }
+        }, executorService).whenComplete((result, error) -> reads.forgetAll());
+    }
+
+    @Override
+    public CompletableFuture<List<Movie>> filterMoviesByKeyword(String keyword) {
+        return reads.run("filterMoviesByKeyword:" + keyword, () -> CompletableFuture.supplyAsync(() -> {
+            Iterable<Movie> moviesSet = movieRepository.findAll();
+            if (StreamSupport.stream(moviesSet.spliterator(), false).findAny().isPresent()) {
+                List<Movie> filteredMovies = StreamSupport.stream(moviesSet.spliterator(), false)
+                        .filter(m -> m.getTitle().toLowerCase().contains(keyword.toLowerCase()))
+                        .collect(Collectors.toList());
+                if (filteredMovies.isEmpty()) {
+                    throw new MovieRentalsException("Movie not found.");
+                }
+                return filteredMovies;
+            } else {
+                throw new MovieRentalsException("Movie not found.");
+            }
+        }, executorService));
+    }
+
+    @Override
+    public CompletableFuture<Void> subscribeMovieChanges(Consumer<MovieChange> changes) {
+        return changeFeed.subscribe(changes);
     }
 }
@@ -0,0 +1,84 @@
+package org.example.movierentals.server.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Lets identical reads that arrive while one of them is running share its result instead
+ * of each running its own database query, e.g. when every terminal opens the movie list
+ * at once.
+ * <p>
+ * Only reads running right now are shared; a read arriving after the result is ready
+ * runs again. The shared query runs under the deadline of the request that started it.
+ * A service forgets the reads in flight once it has made a change, so a read that
+ * starts after the change never gets a result from before it.
+ */
+public class SingleFlight {
+    private final ConcurrentHashMap<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Runs the read, or joins the identical one already running.
+     *
+     * @param key identifies the read, i.e. the operation and its arguments.
+     * @return a future of its own for every caller, so one caller giving up does not
+     * affect the others.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> run(String key, Supplier<CompletableFuture<T>> read) {
+        CompletableFuture<T> shared = new CompletableFuture<>();
+        CompletableFuture<T> running = (CompletableFuture<T>) inFlight.putIfAbsent(key, shared);
+        if (running != null) {
+            coalesced.increment();
+            return running.copy();
+        }
+        executed.increment();
+        try {
+            read.get().whenComplete((result, error) -> {
+                inFlight.remove(key, shared);
+                if (error != null) {
+                    shared.completeExceptionally(error);
+                } else {
+                    shared.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(e);
+        }
+        return shared.copy();
+    }
+
+    /**
+     * Makes reads that start from now on run on their own; the ones in flight still
+     * complete for the callers already waiting on them.
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    /**
+     * Reads that ran a query of their own.
+     */
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    /**
+     * Reads that were answered with the result of an identical read already running.
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "SingleFlight{" +
+                "executed=" + getExecuted() +
+                ", coalesced=" + getCoalesced() +
+                '}';
+    }
+}
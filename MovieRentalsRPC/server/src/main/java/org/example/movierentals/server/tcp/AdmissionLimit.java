@@ -0,0 +1,187 @@
+package org.example.movierentals.server.tcp;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many requests of one class of handlers run at once and how many may wait.
+ * <p>
+ * Several handlers can share a limit, e.g. all expensive reports. Waiting requests are
+ * kept here rather than in the dispatch executor, so a flood of one class never takes
+ * dispatch threads from the others. A request arriving when both the running and the
+ * waiting slots are taken is refused right away, with a hint on when to retry.
+ * <p>
+ * A request keeps its slot until the stage its task returns completes, so asynchronous
+ * handlers are limited by the work they have in flight, not by the threads they hold.
+ */
+public class AdmissionLimit {
+    private static final long MIN_RETRY_AFTER_MILLIS = 10;
+    private static final double SMOOTHING = 0.2;
+
+    private final String name;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final Queue<Admitted> queue = new ArrayDeque<>();
+    private int inFlight;
+    private double averageMillis;
+
+    public AdmissionLimit(String name, int maxInFlight, int maxQueued) {
+        if (maxInFlight < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException("Admission limit " + name + " needs maxInFlight >= 1 and maxQueued >= 0.");
+        }
+        this.name = name;
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Reads {@code server.admission.<name>.maxInFlight} and {@code .maxQueued},
+     * falling back to the given values.
+     */
+    public static AdmissionLimit fromSystemProperties(String name, int maxInFlight, int maxQueued) {
+        return new AdmissionLimit(name,
+                Integer.getInteger("server.admission." + name + ".maxInFlight", maxInFlight),
+                Integer.getInteger("server.admission." + name + ".maxQueued", maxQueued));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * Runs the task on the executor now, or once a running request of this class is done.
+     *
+     * @param task starts the request and returns the stage that completes when it is done.
+     * @param refused called instead of the task if the executor turns down a queued task.
+     * @return false if the limit is full and the task was neither run nor queued.
+     */
+    boolean admit(Supplier<? extends CompletionStage<?>> task, Executor executor, Runnable refused) {
+        return admit(new Admitted(task, refused, null), executor);
+    }
+
+    /**
+     * Like {@link #admit(Supplier, Executor, Runnable)}, for a caller that goes on with the
+     * outcome of the task, e.g. by starting another request of this class.
+     *
+     * @param released called with the result or failure of the task's stage once its
+     *                 slot has been freed; not called if the task is refused.
+     */
+    @SuppressWarnings("unchecked")
+    <T> boolean admit(Supplier<? extends CompletionStage<T>> task, Executor executor, Runnable refused,
+                      BiConsumer<? super T, Throwable> released) {
+        return admit(new Admitted(task, refused, (BiConsumer<Object, Throwable>) released), executor);
+    }
+
+    private boolean admit(Admitted admitted, Executor executor) {
+        synchronized (this) {
+            if (inFlight >= maxInFlight) {
+                if (queue.size() >= maxQueued) {
+                    return false;
+                }
+                queue.add(admitted);
+                return true;
+            }
+            inFlight++;
+        }
+        try {
+            start(admitted, executor);
+        } catch (RejectedExecutionException e) {
+            finished(executor);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * How long a refused client should wait: about the time the requests ahead of it
+     * need to drain, judging by how long recent requests of this class took.
+     */
+    synchronized long retryAfterMillis() {
+        long drain = (long) (averageMillis * (inFlight + queue.size()) / maxInFlight);
+        return Math.max(MIN_RETRY_AFTER_MILLIS, drain);
+    }
+
+    private void start(Admitted admitted, Executor executor) {
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            CompletionStage<?> done;
+            try {
+                done = admitted.task.get();
+            } catch (RuntimeException | Error e) {
+                completed(start, executor);
+                throw e;
+            }
+            done.whenComplete((result, error) -> {
+                completed(start, executor);
+                if (admitted.released != null) {
+                    admitted.released.accept(result, error);
+                }
+            });
+        });
+    }
+
+    private void completed(long start, Executor executor) {
+        record((System.nanoTime() - start) / 1_000_000.0);
+        finished(executor);
+    }
+
+    /**
+     * Frees the slot of a request that is done, or hands it to the next waiting one.
+     */
+    private void finished(Executor executor) {
+        while (true) {
+            Admitted next;
+            synchronized (this) {
+                next = queue.poll();
+                if (next == null) {
+                    inFlight--;
+                    return;
+                }
+            }
+            try {
+                start(next, executor);
+                return;
+            } catch (RejectedExecutionException e) {
+                next.refused.run();
+            }
+        }
+    }
+
+    private synchronized void record(double millis) {
+        averageMillis = averageMillis == 0 ? millis : averageMillis + SMOOTHING * (millis - averageMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionLimit{" +
+                "name='" + name + '\'' +
+                ", maxInFlight=" + maxInFlight +
+                ", maxQueued=" + maxQueued +
+                '}';
+    }
+
+    private static class Admitted {
+        private final Supplier<? extends CompletionStage<?>> task;
+        private final Runnable refused;
+        private final BiConsumer<Object, Throwable> released;
+
+        Admitted(Supplier<? extends CompletionStage<?>> task, Runnable refused, BiConsumer<Object, Throwable> released) {
+            this.task = task;
+            this.refused = refused;
+            this.released = released;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.movierentals.server.tcp;
+
+import org.example.movierentals.common.Message;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Handler that starts the work for a request and returns without waiting for it.
+ * The server writes the response once the returned stage completes, so no thread is
+ * held while a repository call is in flight.
+ */
+@FunctionalInterface
+public interface AsyncHandler {
+
+    /**
+     * @return the stage completed with the response; a stage that fails is answered with an error.
+     */
+    CompletionStage<Message> handle(Message request);
+}
@@ -0,0 +1,96 @@
+package org.example.movierentals.server.tcp;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The open connections of a {@link TcpServer}, so that idle ones can be closed and the
+ * server can wait for the others to finish their requests when it stops.
+ */
+class ConnectionRegistry {
+    private static final long DRAIN_POLL_MILLIS = 50;
+
+    private final Set<ServerConnection> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * Tracks a new connection. Once the registry is closed, the connection is closed right away.
+     */
+    ServerConnection register(Runnable closer) {
+        ServerConnection connection = new ServerConnection(closer);
+        connections.add(connection);
+        if (closed) {
+            connection.close();
+        }
+        return connection;
+    }
+
+    /**
+     * Forgets a connection that no longer reads requests, and stops what its requests
+     * still have running on it.
+     */
+    void unregister(ServerConnection connection) {
+        connections.remove(connection);
+        connection.disconnected();
+    }
+
+    /**
+     * Closes every connection that has had no request in flight for the given time.
+     */
+    void closeIdle(Duration idleTimeout) {
+        long idleNanos = idleTimeout.toNanos();
+        int closedCount = 0;
+        for (ServerConnection connection : connections) {
+            if (connection.closeIfIdle(idleNanos)) {
+                closedCount++;
+            }
+        }
+        if (closedCount > 0) {
+            System.out.println("Closed " + closedCount + " idle connection(s).");
+        }
+    }
+
+    /**
+     * Closes each connection as soon as it has no request in flight, waiting at most the
+     * grace period for all of them to get there.
+     *
+     * @return true if every connection was drained, false if some still had requests in flight.
+     */
+    boolean drain(Duration grace) throws InterruptedException {
+        long deadline = System.nanoTime() + grace.toNanos();
+        while (true) {
+            connections.removeIf(connection -> connection.closeIfIdle(0));
+            if (connections.isEmpty()) {
+                return true;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(DRAIN_POLL_MILLIS);
+        }
+    }
+
+    /**
+     * Closes every connection, including those with requests in flight, and any that is
+     * registered later.
+     */
+    void closeAll() {
+        closed = true;
+        for (ServerConnection connection : connections) {
+            connection.close();
+        }
+        connections.clear();
+    }
+
+    /**
+     * @return the number of requests in flight on all connections.
+     */
+    int inFlight() {
+        int total = 0;
+        for (ServerConnection connection : connections) {
+            total += connection.getInFlight();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.movierentals.server.tcp;
+
+import org.example.movierentals.common.Message;
+import org.example.movierentals.common.Operation;
+
+import java.util.Map;
+
+/**
+ * Finds the route of a request by its opcode.
+ * <p>
+ * The table is an array indexed by opcode, filled once when the server starts and never
+ * changed afterwards, so every dispatch thread may read it without locking and a lookup
+ * is a bounds check and an array load.
+ */
+class DispatchTable {
+    private final Route[] routes;
+
+    DispatchTable(Map<Operation, Route> routes) {
+        this.routes = new Route[Operation.maxOpcode() + 1];
+        routes.forEach((operation, route) -> this.routes[operation.getOpcode()] = route);
+    }
+
+    /**
+     * Looks up a request by its opcode or, if it has none, by the method name in its header.
+     *
+     * @return the route, or {@code null} if the operation is unknown or has no handler.
+     */
+    Route route(Message request) {
+        int opcode = request.getOpcode();
+        if (opcode == 0) {
+            Operation operation = Operation.fromMethodName(request.getHeader());
+            if (operation == null) {
+                return null;
+            }
+            opcode = operation.getOpcode();
+        }
+        return opcode < routes.length ? routes[opcode] : null;
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.movierentals.server.tcp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The listening sockets of a {@link TcpServer}, bound as its {@link ListenerConfig} says,
+ * and the options applied to every connection they accept.
+ */
+class Listener implements AutoCloseable {
+    private final ListenerConfig config;
+    private final List<List<ServerSocketChannel>> channelsByAcceptor = new ArrayList<>();
+    private final List<ServerSocketChannel> channels = new ArrayList<>();
+
+    Listener(ListenerConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Binds every configured address: once per acceptor with SO_REUSEPORT, otherwise once
+     * for all acceptors to share.
+     */
+    void bind() throws IOException {
+        boolean ownSockets = config.isReusePort() && config.getAcceptorThreads() > 1 && supportsReusePort();
+        if (config.isReusePort() && !ownSockets && config.getAcceptorThreads() > 1) {
+            System.err.println("SO_REUSEPORT is not supported, acceptors share the listening sockets.");
+        }
+        try {
+            List<ServerSocketChannel> shared = ownSockets ? null : bindAll(false);
+            for (int i = 0; i < config.getAcceptorThreads(); i++) {
+                channelsByAcceptor.add(ownSockets ? bindAll(true) : shared);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private List<ServerSocketChannel> bindAll(boolean reusePort) throws IOException {
+        List<ServerSocketChannel> bound = new ArrayList<>();
+        for (InetSocketAddress address : config.getBindAddresses()) {
+            ServerSocketChannel channel = ServerSocketChannel.open();
+            channels.add(channel);
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            if (reusePort) {
+                channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            if (config.getReceiveBufferSize() > 0) {
+                // set before bind so that windows above 64 KB are negotiated with the client
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, config.getReceiveBufferSize());
+            }
+            channel.bind(address, config.getBacklog());
+            bound.add(channel);
+            System.out.println("Listening on " + channel.getLocalAddress() + ".");
+        }
+        return bound;
+    }
+
+    private static boolean supportsReusePort() {
+        try (ServerSocketChannel probe = ServerSocketChannel.open()) {
+            return probe.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the listening sockets the given acceptor serves.
+     */
+    List<ServerSocketChannel> channelsOf(int acceptor) {
+        return channelsByAcceptor.get(acceptor);
+    }
+
+    int acceptorCount() {
+        return channelsByAcceptor.size();
+    }
+
+    /**
+     * Applies the configured socket options to an accepted connection.
+     */
+    void configure(SocketChannel channel) throws IOException {
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, config.isTcpNoDelay());
+        if (config.getReceiveBufferSize() > 0) {
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, config.getReceiveBufferSize());
+        }
+        if (config.getSendBufferSize() > 0) {
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, config.getSendBufferSize());
+        }
+    }
+
+    @Override
+    public void close() {
+        for (ServerSocketChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.movierentals.server.tcp;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where the {@link TcpServer} listens and how its sockets are tuned.
+ */
+public class ListenerConfig {
+    public static final int DEFAULT_PORT = 1234;
+
+    private List<InetSocketAddress> bindAddresses = List.of(new InetSocketAddress(DEFAULT_PORT));
+    private int backlog = 1024;
+    private int acceptorThreads = 1;
+    private boolean tcpNoDelay = true;
+    private int receiveBufferSize;
+    private int sendBufferSize;
+    private boolean reusePort;
+    private Duration idleTimeout = Duration.ofMinutes(5);
+
+    public ListenerConfig() {
+    }
+
+    /**
+     * Reads the settings from {@code server.listen.*} and {@code server.socket.*} system
+     * properties, falling back to the defaults.
+     */
+    public static ListenerConfig fromSystemProperties() {
+        ListenerConfig config = new ListenerConfig();
+        String addresses = System.getProperty("server.listen.addresses");
+        if (addresses != null) {
+            config.setBindAddresses(parseAddresses(addresses));
+        }
+        config.setBacklog(Integer.getInteger("server.listen.backlog", config.getBacklog()));
+        config.setAcceptorThreads(Integer.getInteger("server.listen.acceptors", config.getAcceptorThreads()));
+        config.setTcpNoDelay(Boolean.parseBoolean(System.getProperty("server.socket.tcpNoDelay",
+                String.valueOf(config.isTcpNoDelay()))));
+        config.setReceiveBufferSize(Integer.getInteger("server.socket.receiveBufferSize", config.getReceiveBufferSize()));
+        config.setSendBufferSize(Integer.getInteger("server.socket.sendBufferSize", config.getSendBufferSize()));
+        config.setReusePort(Boolean.getBoolean("server.socket.reusePort"));
+        config.setIdleTimeout(Duration.ofMillis(Long.getLong("server.socket.idleTimeoutMillis",
+                config.getIdleTimeout().toMillis())));
+        return config;
+    }
+
+    /**
+     * Parses a comma separated list of {@code host:port} entries. A missing or {@code *}
+     * host means all interfaces, an IPv6 host is written in brackets.
+     */
+    public static List<InetSocketAddress> parseAddresses(String addresses) {
+        List<InetSocketAddress> result = new ArrayList<>();
+        for (String entry : addresses.split(",")) {
+            String address = entry.trim();
+            if (address.isEmpty()) {
+                continue;
+            }
+            int colon = address.lastIndexOf(':');
+            String host = colon < 0 ? "" : address.substring(0, colon);
+            int port = Integer.parseInt(address.substring(colon + 1));
+            if (host.startsWith("[") && host.endsWith("]")) {
+                host = host.substring(1, host.length() - 1);
+            }
+            result.add(host.isEmpty() || host.equals("*")
+                    ? new InetSocketAddress(port)
+                    : new InetSocketAddress(host, port));
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("No bind address in '" + addresses + "'.");
+        }
+        return result;
+    }
+
+    /**
+     * The addresses to listen on; every one of them is served by all acceptors.
+     */
+    public List<InetSocketAddress> getBindAddresses() {
+        return bindAddresses;
+    }
+
+    public void setBindAddresses(List<InetSocketAddress> bindAddresses) {
+        this.bindAddresses = List.copyOf(bindAddresses);
+    }
+
+    /**
+     * Connections the kernel queues for each listening socket before they are accepted.
+     */
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    /**
+     * Threads accepting connections. In NIO mode each one also runs its own selector,
+     * doing the socket I/O of the connections it accepted.
+     */
+    public int getAcceptorThreads() {
+        return acceptorThreads;
+    }
+
+    public void setAcceptorThreads(int acceptorThreads) {
+        this.acceptorThreads = acceptorThreads;
+    }
+
+    /**
+     * Disables Nagle's algorithm on accepted connections, so small responses are sent
+     * at once instead of waiting for the client's acknowledgement.
+     */
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    /**
+     * SO_RCVBUF in bytes; 0 keeps the operating system's default.
+     */
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
+    /**
+     * SO_SNDBUF in bytes; 0 keeps the operating system's default.
+     */
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    public void setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    /**
+     * Gives every acceptor a listening socket of its own on each address, bound with
+     * SO_REUSEPORT, so the kernel spreads new connections over them instead of all
+     * acceptors contending for one socket. Ignored where SO_REUSEPORT is not supported.
+     */
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public void setReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+    }
+
+    /**
+     * How long a connection may stay open without a request in flight before the server
+     * closes it; zero keeps idle connections open. Clients reconnect on their next request.
+     */
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    @Override
+    public String toString() {
+        return "ListenerConfig{" +
+                "bindAddresses=" + bindAddresses +
+                ", backlog=" + backlog +
+                ", acceptorThreads=" + acceptorThreads +
+                ", tcpNoDelay=" + tcpNoDelay +
+                ", receiveBufferSize=" + receiveBufferSize +
+                ", sendBufferSize=" + sendBufferSize +
+                ", reusePort=" + reusePort +
+                ", idleTimeout=" + idleTimeout +
+                '}';
+    }
+}
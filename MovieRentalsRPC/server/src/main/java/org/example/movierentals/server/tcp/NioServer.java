@@ -0,0 +1,325 @@
+package org.example.movierentals.server.tcp;
+
+import org.example.movierentals.common.BufferPool;
+import org.example.movierentals.common.Compression;
+import org.example.movierentals.common.FrameCodec;
+import org.example.movierentals.common.Message;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Event-loop transport: one selector thread accepts connections and does all socket
+ * reads and writes for them without blocking. A request is handed to a worker only once
+ * its whole frame is buffered, so idle or slow connections do not hold any thread.
+ * A server with several acceptors runs one event loop per acceptor.
+ * <p>
+ * Connections are closed on the selector thread, and only once the responses queued
+ * for them have been written, whichever thread asks for it.
+ */
+class NioServer {
+    private static final long MAX_QUEUED_BYTES = 1024 * 1024;
+
+    private final List<ServerSocketChannel> serverChannels;
+    private final Listener listener;
+    private final TcpServer server;
+    private final ConnectionRegistry connections;
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Queue<Connection> pendingCloses = new ConcurrentLinkedQueue<>();
+    private volatile Selector selector;
+    private volatile boolean stopped;
+    private Thread selectorThread;
+
+    /**
+     * @param serverChannels bound, non-blocking listening sockets; other event loops may
+     *                       accept from the same ones.
+     * @param server takes every request off the selector thread; it must not block.
+     */
+    NioServer(List<ServerSocketChannel> serverChannels, Listener listener, TcpServer server,
+              ConnectionRegistry connections) {
+        this.serverChannels = serverChannels;
+        this.listener = listener;
+        this.server = server;
+        this.connections = connections;
+    }
+
+    /**
+     * Makes the loop notice that the listening sockets were closed, so their ports are
+     * released right away.
+     */
+    void stopAccepting() {
+        wakeup();
+    }
+
+    /**
+     * Ends the loop, closing the connections it still serves.
+     */
+    void stop() {
+        stopped = true;
+        wakeup();
+    }
+
+    private void wakeup() {
+        Selector selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Runs the event loop on the calling thread.
+     */
+    void run() throws IOException {
+        try (Selector selector = Selector.open()) {
+            this.selector = selector;
+            this.selectorThread = Thread.currentThread();
+            for (ServerSocketChannel serverChannel : serverChannels) {
+                serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            }
+
+            while (!stopped) {
+                selector.select();
+                registerPendingWrites();
+                closePending();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept((ServerSocketChannel) key.channel());
+                            continue;
+                        }
+                        if (key.isReadable()) {
+                            ((Connection) key.attachment()).read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            ((Connection) key.attachment()).write();
+                        }
+                    } catch (IOException e) {
+                        System.out.println("Client disconnected.");
+                        closeQuietly(key);
+                    }
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    closeQuietly(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Accepts a pending connection, if another event loop has not taken it already.
+     * A failure only affects that connection, never the listening socket.
+     */
+    private void accept(ServerSocketChannel serverChannel) {
+        SocketChannel channel = null;
+        try {
+            channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+            listener.configure(channel);
+            channel.configureBlocking(false);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+            System.out.println("Client connected.");
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException closeFailure) {
+                    closeFailure.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void registerPendingWrites() {
+        Connection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            if (connection.key.isValid()) {
+                connection.key.interestOps(connection.key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    /**
+     * Closes the connections asked to close whose queued responses have all been written;
+     * the others are closed by {@link Connection#write()} once they have.
+     */
+    private void closePending() {
+        Connection connection;
+        while ((connection = pendingCloses.poll()) != null) {
+            if (connection.key.isValid() && connection.closeOnceFlushed()) {
+                closeQuietly(connection.key);
+            }
+        }
+    }
+
+    private void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (key.attachment() instanceof Connection connection) {
+            connection.release();
+            connections.unregister(connection.tracked);
+        }
+    }
+
+
+    /**
+     * Per-connection state: a codec buffering the partial frame received so far and a
+     * queue of encoded responses waiting to be written, both in pooled direct buffers.
+     */
+    private class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final FrameCodec codec = new FrameCodec();
+        private final BufferPool pool = BufferPool.shared();
+        private final Queue<ByteBuffer> writeQueue = new ArrayDeque<>();
+        private final ServerConnection tracked;
+        private long queuedBytes;
+        private boolean closeWhenFlushed;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+            this.tracked = connections.register(() -> {
+                pendingCloses.add(this);
+                wakeup();
+            });
+        }
+
+        /**
+         * Reads what the socket has and hands every complete request to a worker.
+         */
+        void read() throws IOException {
+            if (codec.readFrom(channel) == -1) {
+                throw new IOException("Connection closed.");
+            }
+            Message request;
+            while ((request = codec.nextFrame()) != null) {
+                if (request.hasHeader(Message.HELLO)) {
+                    negotiate(request);
+                } else {
+                    server.submit(request, this::reply, tracked);
+                }
+            }
+        }
+
+        private void negotiate(Message hello) {
+            Message response = TcpServer.negotiate(hello);
+            synchronized (writeQueue) {
+                enqueue(codec.encode(response));
+                codec.setCompression(Compression.fromWireName(response.getBody()));
+            }
+            pendingWrites.add(this);
+            selector.wakeup();
+        }
+
+        /**
+         * Queues a response for the selector thread to write. While more than
+         * {@link #MAX_QUEUED_BYTES} are waiting, the calling worker is held back, so a
+         * streamed response to a slow client does not pile up in memory. The selector
+         * thread itself, answering a refused request, is never held back.
+         *
+         * @throws UncheckedIOException if the connection has been closed.
+         */
+        private void reply(Message response) {
+            synchronized (writeQueue) {
+                while (queuedBytes > MAX_QUEUED_BYTES && key.isValid() && Thread.currentThread() != selectorThread) {
+                    pendingWrites.add(this);
+                    selector.wakeup();
+                    try {
+                        writeQueue.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!key.isValid()) {
+                    throw new UncheckedIOException(new ClosedChannelException());
+                }
+                enqueue(codec.encode(response));
+            }
+            pendingWrites.add(this);
+            selector.wakeup();
+        }
+
+        /**
+         * Copies the codec's frame into a pooled buffer, since the codec reuses its own.
+         */
+        private void enqueue(ByteBuffer frame) {
+            queuedBytes += frame.remaining();
+            writeQueue.add(pool.acquire(frame.remaining()).put(frame).flip());
+        }
+
+        void write() throws IOException {
+            synchronized (writeQueue) {
+                while (!writeQueue.isEmpty()) {
+                    ByteBuffer buffer = writeQueue.peek();
+                    queuedBytes -= channel.write(buffer);
+                    if (buffer.hasRemaining()) {
+                        writeQueue.notifyAll();
+                        return;
+                    }
+                    pool.release(writeQueue.remove());
+                }
+                key.interestOps(SelectionKey.OP_READ);
+                writeQueue.notifyAll();
+                if (!closeWhenFlushed) {
+                    return;
+                }
+            }
+            closeQuietly(key);
+        }
+
+        /**
+         * @return true if nothing is left to write, otherwise the connection is closed
+         * after the last queued response has been written.
+         */
+        boolean closeOnceFlushed() {
+            synchronized (writeQueue) {
+                closeWhenFlushed = true;
+                return writeQueue.isEmpty();
+            }
+        }
+
+        /**
+         * Gives the buffers back once the connection is closed and wakes up waiting workers.
+         */
+        void release() {
+            synchronized (writeQueue) {
+                ByteBuffer buffer;
+                while ((buffer = writeQueue.poll()) != null) {
+                    pool.release(buffer);
+                }
+                queuedBytes = 0;
+                codec.close();
+                writeQueue.notifyAll();
+            }
+        }
+    }
+}
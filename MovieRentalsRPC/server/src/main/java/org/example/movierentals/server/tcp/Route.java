@@ -0,0 +1,38 @@
+package org.example.movierentals.server.tcp;
+
+/**
+ * An entry of the {@link DispatchTable}: the handler of one operation and the admission
+ * limit its requests run under. Exactly one of the two handlers is set.
+ */
+class Route {
+    private final AsyncHandler handler;
+    private final StreamHandler streamHandler;
+    private final AdmissionLimit limit;
+
+    Route(AsyncHandler handler, StreamHandler streamHandler, AdmissionLimit limit) {
+        this.handler = handler;
+        this.streamHandler = streamHandler;
+        this.limit = limit;
+    }
+
+    /**
+     * The handler of a single-response operation, {@code null} for a streamed one.
+     */
+    AsyncHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * The handler of a streamed operation, {@code null} for a single-response one.
+     */
+    StreamHandler getStreamHandler() {
+        return streamHandler;
+    }
+
+    /**
+     * @return the limit, or {@code null} if the server's default applies.
+     */
+    AdmissionLimit getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.movierentals.server.tcp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What the server's lifecycle needs to know about one open connection: how many of its
+ * requests are in flight, when it was last used, how to close it and what to stop once
+ * it is gone.
+ */
+class ServerConnection {
+    private final Runnable closer;
+    private final Set<Runnable> onDisconnect = new LinkedHashSet<>();
+    private int inFlight;
+    private long lastActiveNanos = System.nanoTime();
+    private boolean closing;
+    private boolean disconnected;
+
+    /**
+     * @param closer closes the connection; it may be called from any thread.
+     */
+    ServerConnection(Runnable closer) {
+        this.closer = closer;
+    }
+
+    /**
+     * @return false if the connection is being closed, in which case the request is not run.
+     */
+    synchronized boolean requestStarted() {
+        if (closing) {
+            return false;
+        }
+        inFlight++;
+        lastActiveNanos = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Called once the response to a started request, or its last frame, has been passed on.
+     */
+    synchronized void requestFinished() {
+        inFlight--;
+        lastActiveNanos = System.nanoTime();
+    }
+
+    /**
+     * Closes the connection if no request is in flight on it and it has not been used
+     * for the given time. A request arriving later finds it closing and is answered
+     * with a busy status instead of being run, so a connection is never closed under a
+     * request the server has taken on.
+     *
+     * @return true if the connection is now being closed.
+     */
+    boolean closeIfIdle(long idleNanos) {
+        synchronized (this) {
+            if (closing || inFlight > 0 || System.nanoTime() - lastActiveNanos < idleNanos) {
+                return closing;
+            }
+            closing = true;
+        }
+        closer.run();
+        return true;
+    }
+
+    /**
+     * Closes the connection even if requests are still in flight on it.
+     */
+    void close() {
+        synchronized (this) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+        }
+        closer.run();
+    }
+
+    /**
+     * Runs the callback once the connection is gone, e.g. to end a stream or subscription
+     * that would otherwise only notice when it next writes to the connection.
+     *
+     * @return false if the connection is gone already, in which case the callback is not run.
+     */
+    synchronized boolean whenDisconnected(Runnable callback) {
+        if (disconnected) {
+            return false;
+        }
+        onDisconnect.add(callback);
+        return true;
+    }
+
+    /**
+     * Forgets a callback whose request has finished before the connection went away.
+     */
+    synchronized void removeWhenDisconnected(Runnable callback) {
+        onDisconnect.remove(callback);
+    }
+
+    /**
+     * Called once the connection no longer reads requests, whoever closed it. Runs the
+     * callbacks registered with {@link #whenDisconnected(Runnable)}.
+     */
+    void disconnected() {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            if (disconnected) {
+                return;
+            }
+            disconnected = true;
+            closing = true;
+            callbacks = new ArrayList<>(onDisconnect);
+            onDisconnect.clear();
+        }
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.movierentals.server.tcp;
+
+import org.example.movierentals.common.BinaryWriter;
+import org.example.movierentals.common.Message;
+import org.example.movierentals.common.Operation;
+import org.example.movierentals.common.RpcMethod;
+import org.example.movierentals.common.domain.exceptions.MovieRentalsException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Turns the methods of a service into request handlers: a handler decodes the arguments
+ * of the request, calls the service and encodes its result, see {@link RpcMethod}. A call
+ * that fails is answered with an error status and a text body instead.
+ * <p>
+ * The methods are resolved when the skeleton is created, each into a method handle bound
+ * to the service, so a call does no reflection. Which limit and cache a handler runs
+ * under is left to whoever registers it.
+ */
+public final class ServiceSkeleton<T> {
+    private static final String OK = "200 OK";
+    private static final String ERROR = "400 Error";
+
+    private final Class<T> serviceInterface;
+    private final Map<Operation, Binding> bindings = new EnumMap<>(Operation.class);
+
+    /**
+     * @throws IllegalArgumentException if a method of the interface cannot be sent, see
+     *                                  {@link RpcMethod#resolve(Class)}.
+     */
+    public ServiceSkeleton(Class<T> serviceInterface, T service) {
+        this.serviceInterface = serviceInterface;
+        MethodType spread = MethodType.methodType(Object.class, Object[].class);
+        for (RpcMethod method : RpcMethod.resolve(serviceInterface).values()) {
+            MethodHandle invoker;
+            try {
+                invoker = MethodHandles.publicLookup().unreflect(method.getMethod())
+                        .bindTo(service)
+                        .asSpreader(Object[].class, method.getParameterCount())
+                        .asType(spread);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(serviceInterface.getName() + " is not public.", e);
+            }
+            bindings.put(method.getOperation(), new Binding(method, invoker));
+        }
+    }
+
+    /**
+     * @param error the body of the response when the call fails; the service fails its
+     *              future, e.g. with a {@link MovieRentalsException} when there is nothing
+     *              to answer with.
+     */
+    public AsyncHandler handler(Operation operation, String error) {
+        Binding binding = binding(operation, false);
+        return (Message request) -> {
+            CompletableFuture<Object> response = call(binding, request, null);
+            return response.handle((result, e) -> {
+                if (e != null) {
+                    report(e);
+                    return new Message(ERROR, error);
+                }
+                return Message.withEncodedBody(OK, binding.method.encodeResult(result));
+            });
+        };
+    }
+
+    /**
+     * A handler for a streamed operation, whose end frame carries the number of rows
+     * sent, or for a subscription, whose end frame says why it ended. Every chunk or
+     * event is encoded as it is produced. Cancelling the stage of a subscription cancels
+     * the future the service returned, which unsubscribes.
+     *
+     * @param error the body of the end frame when a stream fails or sends no rows.
+     */
+    public StreamHandler streamHandler(Operation operation, String error) {
+        Binding binding = binding(operation, true);
+        if (binding.method.getKind() == RpcMethod.Kind.SUBSCRIPTION) {
+            return (Message request, Consumer<byte[]> events) -> {
+                CompletableFuture<Void> subscription = call(binding, request, encoding(binding, events));
+                CompletableFuture<Message> ended = subscription.handle((ignored, e) ->
+                        new Message(ERROR, e == null ? "Subscription ended" : cause(e).getMessage()));
+                // the server cancels the end frame when the connection goes away; pass that on
+                ended.whenComplete((message, e) -> subscription.cancel(false));
+                return ended;
+            };
+        }
+        return (Message request, Consumer<byte[]> chunks) -> {
+            CompletableFuture<Integer> response = call(binding, request, encoding(binding, chunks));
+            return response.handle((rows, e) -> {
+                if (e != null) {
+                    report(e);
+                    return new Message(ERROR, error);
+                }
+                if (rows == 0) {
+                    return new Message(ERROR, error);
+                } else {
+                    return Message.withEncodedBody(OK, new BinaryWriter().writeInt(rows).toByteArray());
+                }
+            });
+        };
+    }
+
+    private static Consumer<Object> encoding(Binding binding, Consumer<byte[]> chunks) {
+        return chunk -> chunks.accept(binding.method.encodeResult(chunk));
+    }
+
+    /**
+     * A {@link MovieRentalsException} is an answer the service chose, such as a record
+     * that does not exist; anything else is a fault worth a stack trace.
+     */
+    private static void report(Throwable e) {
+        if (!(cause(e) instanceof MovieRentalsException)) {
+            e.printStackTrace();
+        }
+    }
+
+    private static Throwable cause(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * Decodes the arguments and calls the service; a request that cannot be decoded, or
+     * a service that throws, gives a failed future.
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> CompletableFuture<R> call(Binding binding, Message request, Consumer<Object> chunks) {
+        try {
+            Object[] arguments = binding.method.arguments(request);
+            if (chunks != null) {
+                arguments[binding.method.getConsumerIndex()] = chunks;
+            }
+            return (CompletableFuture<R>) (Object) binding.invoker.invokeExact(arguments);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Binding binding(Operation operation) {
+        Binding binding = bindings.get(operation);
+        if (binding == null) {
+            throw new IllegalArgumentException(serviceInterface.getSimpleName() + " has no method for " + operation + ".");
+        }
+        return binding;
+    }
+
+    private Binding binding(Operation operation, boolean streamed) {
+        Binding binding = binding(operation);
+        if ((binding.method.getKind() != RpcMethod.Kind.UNARY) != streamed) {
+            throw new IllegalArgumentException(operation + " is a " + binding.method.getKind() + " operation.");
+        }
+        return binding;
+    }
+
+    private static class Binding {
+        private final RpcMethod method;
+        private final MethodHandle invoker;
+
+        Binding(RpcMethod method, MethodHandle invoker) {
+            this.method = method;
+            this.invoker = invoker;
+        }
+    }
+}
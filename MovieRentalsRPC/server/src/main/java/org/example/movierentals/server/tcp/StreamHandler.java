@@ -0,0 +1,22 @@
+package org.example.movierentals.server.tcp;
+
+import org.example.movierentals.common.Message;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+/**
+ * Handler for operations whose response is streamed in chunks instead of built in full.
+ */
+@FunctionalInterface
+public interface StreamHandler {
+
+    /**
+     * Sends the response body in pieces through {@code chunks}, each one already encoded;
+     * every chunk is written to the client as the body of its own frame right away.
+     *
+     * @return the stage completed with the message that ends the stream and carries the
+     * final status, once the last chunk has been sent.
+     */
+    CompletionStage<Message> handle(Message request, Consumer<byte[]> chunks);
+}
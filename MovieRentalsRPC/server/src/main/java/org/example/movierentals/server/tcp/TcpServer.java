@@ -1,65 +1,613 @@
 package org.example.movierentals.server.tcp;
 
+import org.example.movierentals.common.Compression;
+import org.example.movierentals.common.FrameCodec;
 import org.example.movierentals.common.Message;
+import org.example.movierentals.common.Operation;
+import org.example.movierentals.server.RequestDeadline;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.HashMap;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 
+/**
+ * Serves requests on the connections it accepts until {@link #stop(Duration)} drains it.
+ * Connections with nothing in flight for the configured idle timeout are closed.
+ */
 public class TcpServer {
-    private ExecutorService executorService;
-    private Map<String, UnaryOperator<Message>> messageHandlers;
+    private static final String OK = "200 OK";
+    private static final String ERROR = "400 Error";
+    /**
+     * Status of a request refused because its handler class is saturated; the body
+     * says after how many milliseconds to retry.
+     */
+    public static final String BUSY = "503 Busy";
+    /**
+     * Status of a request whose deadline passed before it was run.
+     */
+    public static final String DEADLINE_EXCEEDED = "504 Deadline exceeded";
+
+    /**
+     * How connections are served.
+     * BLOCKING parks one platform thread per connection on a blocking socket,
+     * NIO multiplexes the connections on one selector thread per acceptor,
+     * VIRTUAL runs every connection on its own virtual thread (Java 21+).
+     */
+    public enum Mode {
+        BLOCKING,
+        NIO,
+        VIRTUAL
+    }
+
+    private ExecutorService dispatchExecutor;
+    private ExecutorService connectionExecutor;
+    private Map<Operation, Route> routes;
+    private volatile DispatchTable dispatchTable;
+    private Route batchRoute;
+    private AdmissionLimit defaultAdmissionLimit = AdmissionLimit.fromSystemProperties("default", 256, 1024);
+    private Mode mode;
+    private ListenerConfig listenerConfig;
+    private ConnectionRegistry connections;
+    private List<NioServer> eventLoops;
+    private volatile Listener listener;
+    private volatile boolean stopping;
 
     public TcpServer(ExecutorService executorService) {
-        this.executorService = executorService;
-        this.messageHandlers = new HashMap<>();
+        this(executorService, Mode.BLOCKING);
+    }
+
+    public TcpServer(ExecutorService executorService, Mode mode) {
+        this(executorService, mode == Mode.VIRTUAL
+                ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+                : Executors.newCachedThreadPool(), mode);
+    }
+
+    /**
+     * @param dispatchExecutor runs request handlers; requests it rejects are answered with an error.
+     * @param connectionExecutor runs one reader per connection in blocking and virtual mode;
+     *                           connections it rejects are closed.
+     */
+    public TcpServer(ExecutorService dispatchExecutor, ExecutorService connectionExecutor, Mode mode) {
+        this(dispatchExecutor, connectionExecutor, mode, new ListenerConfig());
+    }
+
+    /**
+     * @param listenerConfig the addresses to listen on, the number of acceptors and the socket options.
+     */
+    public TcpServer(ExecutorService dispatchExecutor, ExecutorService connectionExecutor, Mode mode,
+                     ListenerConfig listenerConfig) {
+        this.dispatchExecutor = dispatchExecutor;
+        this.connectionExecutor = connectionExecutor;
+        this.routes = new EnumMap<>(Operation.class);
+        this.batchRoute = new Route(this::handleBatch, null, null);
+        this.mode = mode;
+        this.listenerConfig = listenerConfig;
+        this.connections = new ConnectionRegistry();
+        this.eventLoops = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Registers a handler that answers right away, without waiting on other work.
+     */
+    public void addMessageHandler(Operation operation, UnaryOperator<Message> handler) {
+        addAsyncHandler(operation, synchronous(handler));
+    }
+
+    public void addMessageHandler(Operation operation, UnaryOperator<Message> handler, AdmissionLimit limit) {
+        addAsyncHandler(operation, synchronous(handler), limit);
+    }
+
+    public void addAsyncHandler(Operation operation, AsyncHandler handler) {
+        addRoute(operation, new Route(handler, null, null));
+    }
+
+    /**
+     * Registers a handler whose requests are admitted under the given limit instead of the default one.
+     */
+    public void addAsyncHandler(Operation operation, AsyncHandler handler, AdmissionLimit limit) {
+        addRoute(operation, new Route(handler, null, limit));
+    }
+
+    public void addStreamHandler(Operation operation, StreamHandler handler) {
+        addRoute(operation, new Route(null, handler, null));
+    }
+
+    public void addStreamHandler(Operation operation, StreamHandler handler, AdmissionLimit limit) {
+        addRoute(operation, new Route(null, handler, limit));
+    }
+
+    private static AsyncHandler synchronous(UnaryOperator<Message> handler) {
+        return request -> CompletableFuture.completedFuture(handler.apply(request));
+    }
+
+    /**
+     * Handlers are collected until {@link #startServer()} turns them into the dispatch table.
+     */
+    private void addRoute(Operation operation, Route route) {
+        if (dispatchTable != null) {
+            throw new IllegalStateException("Handlers must be registered before the server starts.");
+        }
+        routes.put(operation, route);
     }
 
-    public void addMessageHandler(String methodName, UnaryOperator<Message> handler) {
-        messageHandlers.put(methodName, handler);
+    /**
+     * The limit for handlers registered without one of their own.
+     */
+    public void setDefaultAdmissionLimit(AdmissionLimit defaultAdmissionLimit) {
+        this.defaultAdmissionLimit = defaultAdmissionLimit;
     }
 
+    /**
+     * Binds the configured addresses and serves connections on the acceptor threads,
+     * while the calling thread waits for them. Returns once the server has been stopped.
+     */
     public void startServer() {
-        try (ServerSocket serverSocket = new ServerSocket(1234)) {
+        dispatchTable = new DispatchTable(routes);
 
-            while (true) {
-                Socket clientSocket = serverSocket.accept();
+        ScheduledExecutorService reaper = null;
+        try (Listener listener = new Listener(listenerConfig)) {
+            listener.bind();
+            this.listener = listener;
+            if (stopping) {
+                return;
+            }
+            reaper = startReaper(listenerConfig.getIdleTimeout());
+            List<Thread> acceptors = new ArrayList<>();
+            for (int i = 0; i < listener.acceptorCount(); i++) {
+                List<ServerSocketChannel> channels = listener.channelsOf(i);
+                if (mode == Mode.NIO) {
+                    for (ServerSocketChannel channel : channels) {
+                        channel.configureBlocking(false);
+                    }
+                    NioServer eventLoop = new NioServer(channels, listener, this, connections);
+                    eventLoops.add(eventLoop);
+                    acceptors.add(startAcceptor("nio-" + (i + 1), () -> {
+                        try {
+                            eventLoop.run();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }));
+                } else {
+                    // a blocking accept waits on one socket, so each address gets its own thread
+                    for (ServerSocketChannel channel : channels) {
+                        acceptors.add(startAcceptor("acceptor-" + (acceptors.size() + 1),
+                                () -> acceptConnections(channel, listener)));
+                    }
+                }
+            }
+            for (Thread acceptor : acceptors) {
+                acceptor.join();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (reaper != null) {
+                reaper.shutdownNow();
+            }
+            connectionExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Closes idle connections in the background, checking four times per timeout, so a
+     * connection is closed at most a quarter of the timeout late.
+     *
+     * @return the reaper, or {@code null} if idle connections are kept open.
+     */
+    private ScheduledExecutorService startReaper(Duration idleTimeout) {
+        if (idleTimeout.isZero() || idleTimeout.isNegative()) {
+            return null;
+        }
+        ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "connection-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(100, idleTimeout.toMillis() / 4);
+        reaper.scheduleAtFixedRate(() -> connections.closeIdle(idleTimeout), period, period, TimeUnit.MILLISECONDS);
+        return reaper;
+    }
+
+    /**
+     * Stops the server gracefully: it stops accepting connections, answers new requests
+     * with {@link #BUSY}, and closes every connection once its requests in flight are
+     * done. Connections still busy when the grace period ends are closed anyway. Blocks
+     * until then; {@link #startServer()} returns afterwards.
+     */
+    public void stop(Duration grace) {
+        stopping = true;
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.close();
+        }
+        eventLoops.forEach(NioServer::stopAccepting);
+        try {
+            if (!connections.drain(grace)) {
+                System.err.println("Grace period of " + grace.toMillis() + " ms is over, dropping "
+                        + connections.inFlight() + " request(s) in flight.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connections.closeAll();
+            eventLoops.forEach(NioServer::stop);
+        }
+    }
+
+    private static Thread startAcceptor(String name, Runnable loop) {
+        Thread thread = new Thread(loop, name);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Accepts connections from a blocking listening socket and hands each one to a
+     * connection thread, until the socket is closed.
+     */
+    private void acceptConnections(ServerSocketChannel serverChannel, Listener listener) {
+        while (true) {
+            SocketChannel clientChannel;
+            try {
+                clientChannel = serverChannel.accept();
+            } catch (IOException e) {
+                if (serverChannel.isOpen()) {
+                    e.printStackTrace();
+                }
+                return;
+            }
+            try {
+                listener.configure(clientChannel);
+                connectionExecutor.submit(new ClientHandler(clientChannel));
                 System.out.println("Client connected.");
-                executorService.submit(new ClientHandler(clientSocket));
+            } catch (RejectedExecutionException e) {
+                System.err.println("Connection limit reached, closing new connection.");
+                closeQuietly(clientChannel);
+            } catch (IOException e) {
+                e.printStackTrace();
+                closeQuietly(clientChannel);
             }
+        }
+    }
 
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Answers the hello of a new connection with the compression codec both sides will use.
+     * The transport switches its codec only after writing this response uncompressed.
+     */
+    static Message negotiate(Message hello) {
+        Message response = new Message(OK, Compression.negotiate(hello.getBody()).getWireName());
+        response.setCorrelationId(hello.getCorrelationId());
+        return response;
+    }
+
+    /**
+     * Hands the request to the dispatch executor under the admission limit of its handler,
+     * or answers straight away with {@link #BUSY} if that limit is full, the server is
+     * stopping or the connection is closing. The request counts as in flight on its
+     * connection until it is answered.
+     */
+    void submit(Message request, Consumer<Message> replies, ServerConnection connection) {
+        if (stopping) {
+            send(replies, shuttingDown(request));
+            return;
+        }
+        if (!connection.requestStarted()) {
+            send(replies, closing(request));
+            return;
+        }
+        Route route = request.hasHeader(Message.BATCH) ? batchRoute : dispatchTable.route(request);
+        if (route == null) {
+            send(replies, unknownOperation(request));
+            connection.requestFinished();
+            return;
+        }
+        AdmissionLimit limit = route.getLimit() == null ? defaultAdmissionLimit : route.getLimit();
+        boolean admitted = limit.admit(
+                () -> dispatch(request, route, replies, connection)
+                        .whenComplete((ignored, error) -> connection.requestFinished()),
+                dispatchExecutor,
+                () -> {
+                    send(replies, busy(request, limit));
+                    connection.requestFinished();
+                });
+        if (!admitted) {
+            send(replies, busy(request, limit));
+            connection.requestFinished();
+        }
+    }
+
+    /**
+     * Passes on a single response; if the connection has been closed meanwhile, nobody is
+     * waiting for it any more.
+     */
+    private static void send(Consumer<Message> replies, Message response) {
+        try {
+            replies.accept(response);
+        } catch (UncheckedIOException e) {
+            // the client is gone
+        }
+    }
+
+    private static Message shuttingDown(Message request) {
+        Message response = new Message(BUSY, "Server is shutting down");
+        response.setCorrelationId(request.getCorrelationId());
+        return response;
+    }
+
+    /**
+     * Tells the client to retry a request that arrived on a connection being closed, if
+     * the reply still gets through.
+     */
+    private static Message closing(Message request) {
+        Message response = new Message(BUSY, "Connection is closing");
+        response.setCorrelationId(request.getCorrelationId());
+        return response;
+    }
+
+    private static Message busy(Message request, AdmissionLimit limit) {
+        Message response = new Message(BUSY, "Retry after " + limit.retryAfterMillis() + " ms");
+        response.setCorrelationId(request.getCorrelationId());
+        return response;
+    }
+
+    /**
+     * Starts the handler for the request and passes its response, or for a streamed
+     * operation every chunk followed by the final frame, to {@code replies}. The response
+     * is written by whichever thread completes the handler's stage. A request whose
+     * deadline passes first is answered with {@link #DEADLINE_EXCEEDED} instead.
+     * <p>
+     * Once the connection is closed {@code replies} throws an {@link UncheckedIOException};
+     * a streamed handler gets it from its chunk consumer, so it can stop producing. The
+     * stage of a streamed handler is also cancelled as soon as the connection goes away,
+     * so a subscription that has nothing to push does not keep it and its admission slot.
+     * <p>
+     * The deadline answer does not stop a handler that is already running; a streamed one
+     * is stopped at its next chunk. Either way the request keeps its admission slot until
+     * the handler is done.
+     *
+     * @return a stage that completes once the response has been passed on and the
+     * handler's stage has completed.
+     */
+    CompletionStage<Void> dispatch(Message request, Route route, Consumer<Message> replies,
+                                   ServerConnection connection) {
+        if (request.isExpired()) {
+            send(replies, deadlineExceeded(request));
+            return CompletableFuture.completedFuture(null);
+        }
+        RequestDeadline.set(request);
+        try {
+            CompletableFuture<Message> done;
+            StreamHandler streamHandler = route.getStreamHandler();
+            if (streamHandler == null) {
+                done = handle(request, route.getHandler());
+            } else {
+                CompletionStage<Message> stream = start(request, r -> streamHandler.handle(r, chunk -> {
+                    if (request.isExpired()) {
+                        // the client has been answered with DEADLINE_EXCEEDED, make the producer stop
+                        throw new CancellationException("Request deadline exceeded");
+                    }
+                    Message frame = Message.withEncodedBody(OK, chunk);
+                    frame.setCorrelationId(request.getCorrelationId());
+                    frame.setMore(true);
+                    replies.accept(frame);
+                }));
+                cancelOnDisconnect(stream, connection);
+                done = respond(request, stream);
+            }
+            CompletableFuture<Message> response = done;
+            if (request.hasDeadline()) {
+                response = done.copy();
+                response.completeOnTimeout(deadlineExceeded(request),
+                        request.getDeadline() - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+            // the handler may still be running after the deadline answer, so wait for it too
+            return CompletableFuture.allOf(response.thenAccept(message -> send(replies, message)), done);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    /**
+     * The answer to a request that waited in a queue past its deadline. The client has
+     * most likely given up already, so it is not run at all.
+     */
+    private static Message deadlineExceeded(Message request) {
+        Message response = new Message(DEADLINE_EXCEEDED, "Request deadline exceeded");
+        response.setCorrelationId(request.getCorrelationId());
+        return response;
+    }
+
+    private static Message unknownOperation(Message request) {
+        Operation known = Operation.fromOpcode(request.getOpcode());
+        String operation = request.getOpcode() == 0 ? request.getHeader()
+                : known == null ? "opcode " + request.getOpcode() : known.getMethodName();
+        Message response = new Message(ERROR, "Unknown operation: " + operation);
+        response.setCorrelationId(request.getCorrelationId());
+        return response;
+    }
+
+    /**
+     * Cancels a stream when its connection goes away; a stream that completes first
+     * forgets the connection again.
+     */
+    private static void cancelOnDisconnect(CompletionStage<Message> stream, ServerConnection connection) {
+        CompletableFuture<Message> future = stream.toCompletableFuture();
+        Runnable cancel = () -> future.cancel(false);
+        if (!connection.whenDisconnected(cancel)) {
+            cancel.run();
+            return;
+        }
+        future.whenComplete((response, error) -> connection.removeWhenDisconnected(cancel));
+    }
+
+    /**
+     * Starts the handler and turns a failure, whether thrown or completing its stage,
+     * into an error response, as it does a handler that answers with nothing at all.
+     *
+     * @return a stage that always completes normally, with the response to the request.
+     */
+    private static CompletableFuture<Message> handle(Message request, AsyncHandler handler) {
+        return respond(request, start(request, handler));
+    }
+
+    /**
+     * @return the handler's stage, failed if the handler threw and completed with
+     * {@code null} if it returned none.
+     */
+    private static CompletionStage<Message> start(Message request, AsyncHandler handler) {
+        try {
+            CompletionStage<Message> stage = handler.handle(request);
+            return stage == null ? CompletableFuture.completedFuture(null) : stage;
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static CompletableFuture<Message> respond(Message request, CompletionStage<Message> stage) {
+        return stage.handle((response, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                // an exception without a message still tells the client what went wrong
+                response = new Message(ERROR, cause.getMessage() != null ? cause.getMessage() : cause.toString());
+            } else if (response == null) {
+                response = new Message(ERROR, "No response");
+            }
+            response.setCorrelationId(request.getCorrelationId());
+            return response;
+        }).toCompletableFuture();
+    }
+
+    /**
+     * Runs the parts of a batch in order through the regular handlers, each one starting
+     * when the one before it has completed, and answers with one response whose parts
+     * hold the status and body of every item. A failing item does not stop the ones after it.
+     * <p>
+     * An item whose handler has an admission limit of its own runs under that limit as
+     * well, and is answered with {@link #BUSY} if the limit is full, so a batch of reports
+     * cannot run more of them than the reports limit allows.
+     */
+    private CompletionStage<Message> handleBatch(Message batch) {
+        List<Message> results = new ArrayList<>(batch.getParts().size());
+        CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+        for (Message item : batch.getParts()) {
+            previous = previous.thenCompose(ignored -> handleBatchItem(batch, item)).thenAccept(results::add);
+        }
+        return previous.thenApply(ignored -> {
+            Message response = new Message(OK);
+            response.setParts(results);
+            return response;
+        });
+    }
+
+    private CompletableFuture<Message> handleBatchItem(Message batch, Message item) {
+        Route route = dispatchTable.route(item);
+        if (batch.isExpired()) {
+            return CompletableFuture.completedFuture(deadlineExceeded(item));
+        }
+        if (route == null || route.getHandler() == null) {
+            return CompletableFuture.completedFuture(unknownOperation(item));
+        }
+        AdmissionLimit limit = route.getLimit();
+        if (limit == null) {
+            return handle(item, route.getHandler());
+        }
+        CompletableFuture<Message> response = new CompletableFuture<>();
+        // the next item may need the slot of this one, so go on only once it has been freed
+        boolean admitted = limit.admit(
+                () -> handle(item, route.getHandler()),
+                dispatchExecutor,
+                () -> response.complete(busy(item, limit)),
+                (message, error) -> response.complete(message));
+        if (!admitted) {
+            response.complete(busy(item, limit));
+        }
+        return response;
+    }
+
 
+    /**
+     * Serves one long-lived connection. Requests are read in a loop and handed to the
+     * executor, so several of them can be in flight at once; each response carries the
+     * correlation id of its request and may be written back out of order.
+     */
     class ClientHandler implements Runnable {
 
-        public Socket clientSocket;
+        public SocketChannel clientChannel;
+        private final FrameCodec codec = new FrameCodec();
 
-        public ClientHandler(Socket clientSocket) {
-            this.clientSocket = clientSocket;
+        public ClientHandler(SocketChannel clientChannel) {
+            this.clientChannel = clientChannel;
         }
 
         @Override
         public void run() {
-            try (var is = clientSocket.getInputStream();
-                 var os = clientSocket.getOutputStream()
-            ) {
-                Message request = new Message();
-                request.readFrom(is);
-
-                Message response = messageHandlers.get(request.getHeader()).apply(request);
-                response.writeTo(os);
-
+            ServerConnection connection = connections.register(() -> closeQuietly(clientChannel));
+            try (SocketChannel channel = clientChannel) {
+                while (true) {
+                    Message request = codec.read(channel);
+                    if (request.hasHeader(Message.HELLO)) {
+                        Message response = negotiate(request);
+                        synchronized (codec) {
+                            codec.write(response, channel);
+                            codec.setCompression(Compression.fromWireName(response.getBody()));
+                        }
+                        continue;
+                    }
+                    submit(request, response -> reply(response, channel), connection);
+                }
+            } catch (EOFException e) {
+                System.out.println("Client disconnected.");
+            } catch (ClosedChannelException e) {
+                System.out.println("Connection closed by server.");
             } catch (IOException e) {
                 e.printStackTrace();
+            } finally {
+                connections.unregister(connection);
+                synchronized (codec) {
+                    codec.close();
+                }
+            }
+        }
+
+        private void reply(Message response, SocketChannel channel) {
+            try {
+                synchronized (codec) {
+                    codec.write(response, channel);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
     }
-}
\ No newline at end of file
+}
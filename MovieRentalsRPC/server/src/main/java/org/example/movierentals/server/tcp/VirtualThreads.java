@@ -0,0 +1,41 @@
+package org.example.movierentals.server.tcp;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads without requiring them at compile time. The project still
+ * builds on JDK 17; the executor is only available when the server runs on Java 21+.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return an executor that starts a new virtual thread for every task.
+     * @throws UnsupportedOperationException if the running JVM has no virtual threads.
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        Method factory = factoryMethod();
+        if (factory == null) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or newer, running on "
+                    + System.getProperty("java.version"));
+        }
+        try {
+            return (ExecutorService) factory.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new UnsupportedOperationException("Virtual threads are not available.", e);
+        }
+    }
+
+    private static Method factoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
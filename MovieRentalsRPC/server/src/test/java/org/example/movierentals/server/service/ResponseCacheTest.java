@@ -0,0 +1,140 @@
+package org.example.movierentals.server.service;
+
+import org.example.movierentals.common.Message;
+import org.example.movierentals.common.Operation;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResponseCacheTest {
+    private static final byte[] MOVIES = {1, 2, 3, 4};
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void repeatedListingIsAnsweredFromTheCache() throws Exception {
+        ResponseCache cache = new ResponseCache(10, 1024, Duration.ofMinutes(1));
+
+        load(cache, Operation.GET_ALL_MOVIES, null);
+        Message cached = load(cache, Operation.GET_ALL_MOVIES, null);
+
+        assertEquals(1, loads.get());
+        assertEquals("200 OK", cached.getHeader());
+        assertArrayEquals(MOVIES, cached.getEncodedBody());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(MOVIES.length, cache.getBytes());
+    }
+
+    @Test
+    void argumentsAreCachedApart() throws Exception {
+        ResponseCache cache = new ResponseCache(10, 1024, Duration.ofMinutes(1));
+
+        load(cache, Operation.FILTER_MOVIES_BY_KEYWORD, "alien");
+        load(cache, Operation.FILTER_MOVIES_BY_KEYWORD, "heat");
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void errorsAreNotCached() throws Exception {
+        ResponseCache cache = new ResponseCache(10, 1024, Duration.ofMinutes(1));
+        for (int i = 0; i < 2; i++) {
+            cache.getOrLoad(Operation.GET_ALL_MOVIES, null, () -> {
+                loads.incrementAndGet();
+                return CompletableFuture.completedFuture(new Message("400 Error", "Database is down"));
+            }).toCompletableFuture().get();
+        }
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    void invalidateDropsOnlyTheGivenOperations() throws Exception {
+        ResponseCache cache = new ResponseCache(10, 1024, Duration.ofMinutes(1));
+        load(cache, Operation.GET_ALL_MOVIES, null);
+        load(cache, Operation.GET_ALL_CLIENTS, null);
+
+        cache.invalidate(Operation.GET_ALL_MOVIES, Operation.FILTER_MOVIES_BY_KEYWORD);
+        load(cache, Operation.GET_ALL_MOVIES, null);
+        load(cache, Operation.GET_ALL_CLIENTS, null);
+
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.getInvalidations());
+    }
+
+    @Test
+    void listingLoadedWhileAChangeWasMadeIsNotCached() throws Exception {
+        ResponseCache cache = new ResponseCache(10, 1024, Duration.ofMinutes(1));
+        CompletableFuture<Message> loading = new CompletableFuture<>();
+        CompletionStage<Message> beforeChange = cache.getOrLoad(Operation.GET_ALL_MOVIES, null, () -> {
+            loads.incrementAndGet();
+            return loading;
+        });
+
+        cache.invalidate(Operation.GET_ALL_MOVIES);
+        loading.complete(Message.withEncodedBody("200 OK", MOVIES));
+        beforeChange.toCompletableFuture().get();
+        load(cache, Operation.GET_ALL_MOVIES, null);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void leastRecentlyUsedListingIsEvictedFirst() throws Exception {
+        ResponseCache cache = new ResponseCache(2, 1024, Duration.ofMinutes(1));
+        load(cache, Operation.GET_ALL_MOVIES, null);
+        load(cache, Operation.GET_ALL_CLIENTS, null);
+        load(cache, Operation.GET_ALL_MOVIES, null);
+
+        load(cache, Operation.GET_ALL_RENTALS, null);
+        load(cache, Operation.GET_ALL_MOVIES, null);
+        load(cache, Operation.GET_ALL_CLIENTS, null);
+
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    void byteLimitEvictsAndKeepsOversizedBodiesOut() throws Exception {
+        ResponseCache cache = new ResponseCache(10, MOVIES.length, Duration.ofMinutes(1));
+        load(cache, Operation.GET_ALL_MOVIES, null);
+        load(cache, Operation.GET_ALL_CLIENTS, null);
+
+        assertEquals(1, cache.getEvictions());
+        assertEquals(MOVIES.length, cache.getBytes());
+
+        cache.getOrLoad(Operation.GET_ALL_RENTALS, null,
+                () -> CompletableFuture.completedFuture(Message.withEncodedBody("200 OK", new byte[MOVIES.length + 1])))
+                .toCompletableFuture().get();
+
+        assertEquals(MOVIES.length, cache.getBytes());
+    }
+
+    @Test
+    void expiredListingIsLoadedAgain() throws Exception {
+        ResponseCache cache = new ResponseCache(10, 1024, Duration.ZERO);
+
+        load(cache, Operation.GET_ALL_MOVIES, null);
+        load(cache, Operation.GET_ALL_MOVIES, null);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getHits());
+    }
+
+    private Message load(ResponseCache cache, Operation operation, String argument) throws Exception {
+        return cache.getOrLoad(operation, argument == null ? null : argument.getBytes(StandardCharsets.UTF_8), () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(Message.withEncodedBody("200 OK", MOVIES));
+        }).toCompletableFuture().get();
+    }
+}
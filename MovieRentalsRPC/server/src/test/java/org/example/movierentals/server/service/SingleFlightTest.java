@@ -0,0 +1,109 @@
+package org.example.movierentals.server.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @Test
+    void identicalReadsInFlightShareOneQuery() throws Exception {
+        CompletableFuture<String> query = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.run("getAllMovies", () -> count(query));
+        CompletableFuture<String> second = singleFlight.run("getAllMovies", () -> count(new CompletableFuture<>()));
+        query.complete("movies");
+
+        assertEquals("movies", first.get());
+        assertEquals("movies", second.get());
+        assertEquals(1, queries.get());
+        assertEquals(1, singleFlight.getExecuted());
+        assertEquals(1, singleFlight.getCoalesced());
+    }
+
+    @Test
+    void differentReadsRunOnTheirOwn() {
+        singleFlight.run("getMovieById:1", () -> count(new CompletableFuture<>()));
+        singleFlight.run("getMovieById:2", () -> count(new CompletableFuture<>()));
+
+        assertEquals(2, queries.get());
+        assertEquals(0, singleFlight.getCoalesced());
+    }
+
+    @Test
+    void readAfterTheResultIsReadyRunsAgain() throws Exception {
+        singleFlight.run("getAllMovies", () -> count(CompletableFuture.completedFuture("old"))).get();
+
+        String result = singleFlight.run("getAllMovies", () -> count(CompletableFuture.completedFuture("new"))).get();
+
+        assertEquals("new", result);
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void readAfterForgetAllRunsOnItsOwnWhileTheOldOneStillCompletes() throws Exception {
+        CompletableFuture<String> beforeChange = new CompletableFuture<>();
+        CompletableFuture<String> waiting = singleFlight.run("getAllMovies", () -> count(beforeChange));
+
+        singleFlight.forgetAll();
+        CompletableFuture<String> afterChange = singleFlight.run("getAllMovies",
+                () -> count(CompletableFuture.completedFuture("after")));
+        beforeChange.complete("before");
+
+        assertEquals("before", waiting.get());
+        assertEquals("after", afterChange.get());
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void failureReachesEveryCaller() {
+        CompletableFuture<String> query = new CompletableFuture<>();
+        CompletableFuture<String> first = singleFlight.run("getAllMovies", () -> count(query));
+        CompletableFuture<String> second = singleFlight.run("getAllMovies", () -> count(query));
+
+        query.completeExceptionally(new IllegalStateException("Database is down"));
+
+        assertInstanceOf(IllegalStateException.class, assertThrows(ExecutionException.class, first::get).getCause());
+        assertInstanceOf(IllegalStateException.class, assertThrows(ExecutionException.class, second::get).getCause());
+    }
+
+    @Test
+    void readThatThrowsIsNotShared() throws Exception {
+        CompletableFuture<String> failed = singleFlight.run("getAllMovies", () -> {
+            throw new IllegalStateException("Database is down");
+        });
+
+        String result = singleFlight.run("getAllMovies", () -> count(CompletableFuture.completedFuture("movies"))).get();
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals("movies", result);
+    }
+
+    @Test
+    void callerGivingUpDoesNotAffectTheOthers() throws Exception {
+        CompletableFuture<String> query = new CompletableFuture<>();
+        CompletableFuture<String> impatient = singleFlight.run("getAllMovies", () -> count(query));
+        CompletableFuture<String> patient = singleFlight.run("getAllMovies", () -> count(query));
+
+        impatient.cancel(true);
+        query.complete("movies");
+
+        assertFalse(query.isCancelled());
+        assertEquals("movies", patient.get());
+    }
+
+    private <T> CompletableFuture<T> count(CompletableFuture<T> query) {
+        queries.incrementAndGet();
+        return query;
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.movierentals.server.tcp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionLimitTest {
+    private static final Executor DIRECT = Runnable::run;
+    private static final Runnable NOT_REFUSED = () -> {
+        throw new AssertionError("Task was refused.");
+    };
+
+    private final AdmissionLimit limit = new AdmissionLimit("reports", 1, 1);
+    private final List<CompletableFuture<Void>> running = new ArrayList<>();
+
+    @Test
+    void requestsBeyondTheRunningAndWaitingSlotsAreRefused() {
+        assertTrue(limit.admit(task(), DIRECT, NOT_REFUSED));
+        assertTrue(limit.admit(task(), DIRECT, NOT_REFUSED));
+
+        assertFalse(limit.admit(task(), DIRECT, NOT_REFUSED));
+        assertEquals(1, running.size());
+    }
+
+    @Test
+    void waitingRequestTakesOverTheSlotOfTheOneThatIsDone() {
+        limit.admit(task(), DIRECT, NOT_REFUSED);
+        limit.admit(task(), DIRECT, NOT_REFUSED);
+
+        running.get(0).complete(null);
+
+        assertEquals(2, running.size());
+        assertTrue(limit.admit(task(), DIRECT, NOT_REFUSED));
+        assertFalse(limit.admit(task(), DIRECT, NOT_REFUSED));
+
+        running.get(1).complete(null);
+        running.get(2).complete(null);
+
+        assertEquals(3, running.size());
+        assertTrue(limit.admit(task(), DIRECT, NOT_REFUSED));
+        assertEquals(4, running.size());
+    }
+
+    @Test
+    void outcomeIsPassedOnOnceTheSlotIsFree() {
+        AtomicBoolean nextAdmitted = new AtomicBoolean();
+
+        limit.admit(() -> CompletableFuture.completedFuture("first"), DIRECT, NOT_REFUSED,
+                (result, error) -> nextAdmitted.set(limit.admit(task(), DIRECT, NOT_REFUSED)));
+
+        assertTrue(nextAdmitted.get());
+        assertEquals(1, running.size());
+    }
+
+    @Test
+    void taskThatThrowsGivesUpItsSlot() {
+        assertThrows(IllegalStateException.class, () -> limit.admit(() -> {
+            throw new IllegalStateException("Handler broke");
+        }, DIRECT, NOT_REFUSED));
+
+        assertTrue(limit.admit(task(), DIRECT, NOT_REFUSED));
+        assertEquals(1, running.size());
+    }
+
+    @Test
+    void waitingRequestTheExecutorTurnsDownIsRefused() {
+        AtomicBoolean shutDown = new AtomicBoolean();
+        Executor executor = command -> {
+            if (shutDown.get()) {
+                throw new RejectedExecutionException("Executor is shut down.");
+            }
+            command.run();
+        };
+        AtomicBoolean refused = new AtomicBoolean();
+        limit.admit(task(), executor, NOT_REFUSED);
+        limit.admit(task(), executor, () -> refused.set(true));
+
+        shutDown.set(true);
+        running.get(0).complete(null);
+
+        assertTrue(refused.get());
+        assertEquals(1, running.size());
+        shutDown.set(false);
+        assertTrue(limit.admit(task(), executor, NOT_REFUSED));
+    }
+
+    @Test
+    void requestTheExecutorTurnsDownRightAwayIsNotAdmitted() {
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException("Executor is shut down.");
+        };
+
+        assertFalse(limit.admit(task(), rejecting, NOT_REFUSED));
+        assertTrue(limit.admit(task(), DIRECT, NOT_REFUSED));
+    }
+
+    @Test
+    void retryHintIsNeverBelowTheMinimum() {
+        limit.admit(task(), DIRECT, NOT_REFUSED);
+        limit.admit(task(), DIRECT, NOT_REFUSED);
+
+        assertTrue(limit.retryAfterMillis() >= 10);
+    }
+
+    @Test
+    void limitNeedsARunningSlot() {
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionLimit("reports", 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionLimit("reports", 1, -1));
+    }
+
+    private Supplier<CompletableFuture<Void>> task() {
+        return () -> {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            running.add(done);
+            return done;
+        };
+    }
+}
@@ -0,0 +1,324 @@
+package org.example.movierentals.server.tcp;
+
+import org.example.movierentals.common.FrameCodec;
+import org.example.movierentals.common.IMovieService;
+import org.example.movierentals.common.Message;
+import org.example.movierentals.common.Operation;
+import org.example.movierentals.common.domain.MovieChange;
+import org.example.movierentals.common.domain.exceptions.MovieRentalsException;
+import org.example.movierentals.server.service.MovieChangeFeed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TcpServerTest {
+    private static final String ERROR = "400 Error";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final TcpServer server = new TcpServer(executor);
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool();
+    private final List<Message> replies = new CopyOnWriteArrayList<>();
+    private TcpServer running;
+    private Thread serverThread;
+
+    @AfterEach
+    void shutDown() throws InterruptedException {
+        if (running != null) {
+            running.stop(Duration.ZERO);
+            serverThread.join(5000);
+        }
+        executor.shutdownNow();
+        connectionExecutor.shutdownNow();
+    }
+
+    @Test
+    void streamHandlerThatThrowsEndsTheStreamWithAnErrorFrame() throws Exception {
+        Route route = new Route(null, (request, chunks) -> {
+            chunks.accept(new byte[]{1});
+            throw new MovieRentalsException("Database is down");
+        }, null);
+
+        dispatch(Operation.STREAM_ALL_MOVIES, route);
+
+        assertEquals(2, replies.size());
+        assertTrue(replies.get(0).isMore());
+        assertEndFrame(ERROR, "Database is down");
+    }
+
+    @Test
+    void streamHandlerThatReturnsNothingEndsTheStreamWithAnErrorFrame() throws Exception {
+        dispatch(Operation.STREAM_ALL_MOVIES, new Route(null, (request, chunks) -> null, null));
+
+        assertEquals(1, replies.size());
+        assertEndFrame(ERROR, "No response");
+    }
+
+    @Test
+    void serviceThatThrowsInsteadOfFailingItsFutureEndsTheStreamWithAnErrorFrame() throws Exception {
+        IMovieService service = (IMovieService) Proxy.newProxyInstance(IMovieService.class.getClassLoader(),
+                new Class<?>[]{IMovieService.class}, (proxy, method, arguments) -> {
+                    throw new MovieRentalsException("Database is down");
+                });
+        StreamHandler handler = new ServiceSkeleton<>(IMovieService.class, service)
+                .streamHandler(Operation.STREAM_ALL_MOVIES, "No movies");
+
+        dispatch(Operation.STREAM_ALL_MOVIES, new Route(null, handler, null));
+
+        assertEquals(1, replies.size());
+        assertEndFrame(ERROR, "No movies");
+    }
+
+    @Test
+    void handlerThatThrowsIsAnsweredWithAnError() throws Exception {
+        dispatch(Operation.GET_MOVIE_BY_ID, new Route(request -> {
+            throw new IllegalStateException("Handler broke");
+        }, null, null));
+
+        assertEquals(1, replies.size());
+        assertEndFrame(ERROR, "Handler broke");
+    }
+
+    @Test
+    void exceptionWithoutAMessageIsAnsweredWithItsName() throws Exception {
+        dispatch(Operation.GET_MOVIE_BY_ID, new Route(request -> {
+            throw new IllegalStateException();
+        }, null, null));
+
+        assertEndFrame(ERROR, "java.lang.IllegalStateException");
+    }
+
+    @Test
+    void handlerThatFailsItsFutureIsAnsweredWithAnError() throws Exception {
+        dispatch(Operation.GET_MOVIE_BY_ID, new Route(request ->
+                CompletableFuture.failedFuture(new MovieRentalsException("Movie not found.")), null, null));
+
+        assertEndFrame(ERROR, "Movie not found.");
+    }
+
+    @Test
+    void handlerThatAnswersWithNothingIsAnsweredWithAnError() throws Exception {
+        dispatch(Operation.GET_MOVIE_BY_ID, new Route(request -> CompletableFuture.completedFuture(null), null, null));
+
+        assertEndFrame(ERROR, "No response");
+    }
+
+    @Test
+    void requestOnAClosingConnectionIsAnsweredWithBusy() {
+        ServerConnection connection = new ServerConnection(() -> {
+        });
+        connection.close();
+        Message request = new Message(Operation.GET_ALL_MOVIES);
+        request.setCorrelationId(7);
+
+        server.submit(request, replies::add, connection);
+
+        assertEquals(1, replies.size());
+        assertEndFrame(TcpServer.BUSY, "Connection is closing");
+    }
+
+    @Test
+    void requestKeepsItsSlotUntilAHandlerPastItsDeadlineIsDone() throws Exception {
+        CompletableFuture<Message> slow = new CompletableFuture<>();
+        Message request = new Message(Operation.GET_ALL_MOVIES);
+        request.setCorrelationId(7);
+        request.setTimeout(Duration.ofMillis(50));
+
+        CompletableFuture<Void> dispatched = server.dispatch(request, new Route(r -> slow, null, null), replies::add,
+                new ServerConnection(() -> {
+                })).toCompletableFuture();
+        await(() -> !replies.isEmpty());
+
+        assertEndFrame(TcpServer.DEADLINE_EXCEEDED, "Request deadline exceeded");
+        assertFalse(dispatched.isDone());
+
+        slow.complete(new Message("200 OK", "too late"));
+        dispatched.get(5, TimeUnit.SECONDS);
+        assertEquals(1, replies.size());
+    }
+
+    @Test
+    void streamPastItsDeadlineStopsAtItsNextChunk() throws Exception {
+        CompletableFuture<Message> producerStopped = new CompletableFuture<>();
+        Route route = new Route(null, (request, chunks) -> CompletableFuture.supplyAsync(() -> {
+            chunks.accept(new byte[]{1});
+            try {
+                Thread.sleep(200);
+                chunks.accept(new byte[]{2});
+            } catch (InterruptedException | RuntimeException e) {
+                producerStopped.complete(new Message(ERROR, e.toString()));
+            }
+            return new Message("200 OK");
+        }), null);
+        Message request = new Message(Operation.STREAM_ALL_MOVIES);
+        request.setCorrelationId(7);
+        request.setTimeout(Duration.ofMillis(100));
+
+        server.dispatch(request, route, replies::add, new ServerConnection(() -> {
+        })).toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertTrue(producerStopped.isDone());
+        assertEquals(2, replies.size());
+        assertTrue(replies.get(0).isMore());
+        assertEndFrame(TcpServer.DEADLINE_EXCEEDED, "Request deadline exceeded");
+    }
+
+    @Test
+    void unknownOperationIsAnsweredWithAnError() throws Exception {
+        InetSocketAddress address = startServer(running ->
+                running.addMessageHandler(Operation.ADD_MOVIE, request -> new Message("200 OK", "added")));
+        try (SocketChannel channel = connect(address)) {
+            FrameCodec codec = new FrameCodec();
+            Message request = new Message(Operation.GET_ALL_MOVIES);
+            request.setCorrelationId(7);
+            codec.write(request, channel);
+
+            Message response = codec.read(channel);
+
+            assertEquals(7, response.getCorrelationId());
+            assertEquals(ERROR, response.getHeader());
+            assertEquals("Unknown operation: getAllMovies", response.getBody());
+        }
+    }
+
+    @Test
+    void batchItemsRunUnderTheLimitOfTheirHandler() throws Exception {
+        AdmissionLimit reports = new AdmissionLimit("reports", 1, 0);
+        InetSocketAddress address = startServer(running -> running.addMessageHandler(
+                Operation.GENERATE_REPORT_BY_CLIENT, request -> new Message("200 OK", "report"), reports));
+        CompletableFuture<Void> runningReport = new CompletableFuture<>();
+        assertTrue(reports.admit(() -> runningReport, Runnable::run, () -> {
+        }));
+
+        try (SocketChannel channel = connect(address)) {
+            FrameCodec codec = new FrameCodec();
+            codec.write(reportBatch(), channel);
+            List<Message> refused = codec.read(channel).getParts();
+
+            assertEquals(2, refused.size());
+            assertEquals(TcpServer.BUSY, refused.get(0).getHeader());
+            assertEquals(TcpServer.BUSY, refused.get(1).getHeader());
+
+            runningReport.complete(null);
+            codec.write(reportBatch(), channel);
+            List<Message> answered = codec.read(channel).getParts();
+
+            assertEquals("report", answered.get(0).getBody());
+            assertEquals("report", answered.get(1).getBody());
+        }
+    }
+
+    private static Message reportBatch() {
+        return Message.batch(List.of(new Message(Operation.GENERATE_REPORT_BY_CLIENT),
+                new Message(Operation.GENERATE_REPORT_BY_CLIENT)));
+    }
+
+    @Test
+    void closingTheConnectionEndsItsSubscriptionAndFreesItsSlot() throws Exception {
+        MovieChangeFeed feed = new MovieChangeFeed(Runnable::run);
+        IMovieService service = (IMovieService) Proxy.newProxyInstance(IMovieService.class.getClassLoader(),
+                new Class<?>[]{IMovieService.class}, (proxy, method, arguments) -> feed.subscribe(changes(arguments[0])));
+        StreamHandler handler = new ServiceSkeleton<>(IMovieService.class, service)
+                .streamHandler(Operation.SUBSCRIBE_MOVIE_CHANGES, null);
+        AdmissionLimit limit = new AdmissionLimit("subscriptions", 1, 0);
+        InetSocketAddress address = startServer(running ->
+                running.addStreamHandler(Operation.SUBSCRIBE_MOVIE_CHANGES, handler, limit));
+        FrameCodec codec = new FrameCodec();
+
+        try (SocketChannel watcher = connect(address)) {
+            codec.write(new Message(Operation.SUBSCRIBE_MOVIE_CHANGES), watcher);
+            await(() -> feed.subscriberCount() == 1);
+
+            try (SocketChannel other = connect(address)) {
+                FrameCodec otherCodec = new FrameCodec();
+                otherCodec.write(new Message(Operation.SUBSCRIBE_MOVIE_CHANGES), other);
+                assertEquals(TcpServer.BUSY, otherCodec.read(other).getHeader());
+            }
+        }
+
+        await(() -> feed.subscriberCount() == 0);
+        await(() -> limit.admit(() -> CompletableFuture.completedFuture(null), Runnable::run, () -> {
+        }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<MovieChange> changes(Object listener) {
+        return (Consumer<MovieChange>) listener;
+    }
+
+    /**
+     * Starts a blocking server on a free port with the routes the test registers; it is
+     * stopped after the test.
+     */
+    private InetSocketAddress startServer(Consumer<TcpServer> routes) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", port);
+        ListenerConfig config = new ListenerConfig();
+        config.setBindAddresses(List.of(address));
+        running = new TcpServer(executor, connectionExecutor, TcpServer.Mode.BLOCKING, config);
+        routes.accept(running);
+        serverThread = new Thread(running::startServer);
+        serverThread.start();
+        return address;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < giveUp, "Condition not met within 5 s.");
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * Connects once the server has bound its address.
+     */
+    private static SocketChannel connect(InetSocketAddress address) throws Exception {
+        long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            try {
+                return SocketChannel.open(address);
+            } catch (IOException e) {
+                if (System.nanoTime() > giveUp) {
+                    throw e;
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    private void dispatch(Operation operation, Route route) throws Exception {
+        Message request = new Message(operation);
+        request.setCorrelationId(7);
+        server.dispatch(request, route, replies::add, new ServerConnection(() -> {
+        })).toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    private void assertEndFrame(String header, String body) {
+        Message end = replies.get(replies.size() - 1);
+        assertFalse(end.isMore());
+        assertEquals(7, end.getCorrelationId());
+        assertEquals(header, end.getHeader());
+        assertEquals(body, end.getBody());
+    }
+}